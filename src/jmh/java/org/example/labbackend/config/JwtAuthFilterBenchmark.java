@@ -0,0 +1,77 @@
+package org.example.labbackend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.example.labbackend.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of a request through JwtAuthFilter: finding the token in the
+ * Authorization header or the auth_token cookie, authenticating it (a cache hit
+ * after the first request) and populating the security context.
+ * {@code none} is an anonymous request with a few unrelated cookies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {};
+
+    @Param({"header", "cookie", "none"})
+    public String tokenSource;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(
+                "benchmark-secret-key-that-is-at-least-256-bits-long", TimeUnit.HOURS.toMillis(24), 10_000);
+        filter = new JwtAuthFilter(jwtService);
+        String token = jwtService.generateToken("jdoe");
+
+        request = new MockHttpServletRequest("GET", "/api/batches");
+        response = new MockHttpServletResponse();
+        Cookie[] browserCookies = {new Cookie("theme", "dark"), new Cookie("lang", "en")};
+        switch (tokenSource) {
+            case "header" -> {
+                request.addHeader("Authorization", "Bearer " + token);
+                request.setCookies(browserCookies);
+            }
+            case "cookie" -> request.setCookies(browserCookies[0], browserCookies[1], new Cookie("auth_token", token));
+            default -> request.setCookies(browserCookies);
+        }
+    }
+
+    @Benchmark
+    public Object filter() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
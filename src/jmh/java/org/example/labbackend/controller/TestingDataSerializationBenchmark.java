@@ -0,0 +1,70 @@
+package org.example.labbackend.controller;
+
+import org.example.labbackend.model.TestingData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a testing data list as JSON, as {@code GET /api/testing} and its
+ * search endpoints do, with the same Jackson 3 mapper type the web layer uses.
+ * Rows are sparsely filled like real ones: a few penetration and drop point
+ * results, the rest of the 25 test columns null.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestingDataSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private List<TestingData> testingData;
+
+    @Setup
+    public void setUp() {
+        testingData = new ArrayList<>(rows);
+        LocalDate start = LocalDate.of(2025, 1, 2);
+        for (int i = 0; i < rows; i++) {
+            TestingData row = new TestingData();
+            row.setId((long) i + 1);
+            row.setBatch("NA6" + String.format("%03d", i % 1000));
+            row.setCode(String.valueOf(1000 + i % 250));
+            row.setDate(start.plusDays(i % 365));
+            row.setPen0x(String.valueOf(265 + i % 30));
+            row.setPen60x(String.valueOf(280 + i % 30));
+            row.setDropPoint(i % 3 == 0 ? String.valueOf(500 + i % 40) : null);
+            row.setCopperCorrosion(i % 5 == 0 ? "1b" : null);
+            testingData.add(row);
+        }
+    }
+
+    @Benchmark
+    public void serialize() {
+        mapper.writeValue(OutputStream.nullOutputStream(), testingData);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() {
+        return mapper.writeValueAsBytes(testingData);
+    }
+}
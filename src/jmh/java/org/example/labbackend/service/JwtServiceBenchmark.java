@@ -0,0 +1,89 @@
+package org.example.labbackend.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a session token at login, and of authenticating one on every
+ * request in JwtAuthFilter.
+ *
+ * <ul>
+ *   <li>{@code legacy}: the filter's old path, {@code extractUsername} then
+ *       {@code isTokenValid}, which parses and verifies the token three times and
+ *       rebuilds the key and parser on each parse.</li>
+ *   <li>{@code firstSight}: one parse with the prebuilt parser, as for a token
+ *       the cache has not seen (measured with the cache turned off).</li>
+ *   <li>{@code cached}: the steady state, where the browser resends a token that
+ *       has already been verified.</li>
+ *   <li>{@code generate}: signing a new token at login.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+    private static final long EXPIRATION = TimeUnit.HOURS.toMillis(24);
+
+    private JwtService cachingService;
+    private JwtService uncachedService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingService = new JwtService(SECRET, EXPIRATION, 10_000);
+        uncachedService = new JwtService(SECRET, EXPIRATION, 0);
+        token = cachingService.generateToken("jdoe");
+        cachingService.authenticate(token);
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String username = legacyClaims(token).getSubject();
+        return username != null
+                && legacyClaims(token).getSubject().equals(username)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public String firstSight() {
+        return uncachedService.authenticate(token);
+    }
+
+    @Benchmark
+    public String cached() {
+        return cachingService.authenticate(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingService.generateToken("jdoe");
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
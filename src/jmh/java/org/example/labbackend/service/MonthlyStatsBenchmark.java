@@ -0,0 +1,56 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.MonthlyStatsDTO;
+import org.example.labbackend.model.MonthlyStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping monthly_stats rows to the DTOs returned by
+ * {@code GET /api/batches/stats/{year}}, as done by
+ * {@link MonthlyBatchService#getMonthlyStats} after its one query. A year is
+ * 12 rows; {@code 120} stands for a multi-year dashboard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonthlyStatsBenchmark {
+
+    @Param({"12", "120"})
+    public int rows;
+
+    private List<MonthlyStats> stats;
+
+    @Setup
+    public void setUp() {
+        stats = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long batches = 40 + i % 17;
+            stats.add(new MonthlyStats(2020 + i / 12, i % 12 + 1, batches, batches - 3,
+                    batches * 8_500, 3L, 25_500L));
+        }
+    }
+
+    @Benchmark
+    public List<MonthlyStatsDTO> toDtos() {
+        return stats.stream()
+                .map(MonthlyBatchService::toDto)
+                .toList();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.labbackend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of one getUpdates poll: parsing Telegram's JSON response
+ * ({@link TelegramApiClient#parseUpdates}) and picking batch commands out of the
+ * messages with {@code BATCH_PATTERN} ({@link TelegramBotService#parseBatchCommand}).
+ * Half of the messages are batch commands, some with a day offset, and the rest
+ * are ordinary chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelegramUpdateBenchmark {
+
+    @Param({"1", "100"})
+    public int updates;
+
+    private TelegramApiClient telegramApiClient;
+    private String response;
+    private List<Map<String, Object>> parsed;
+
+    @Setup
+    public void setUp() throws Exception {
+        telegramApiClient = new TelegramApiClient("http://localhost", "123456:benchmark", 50);
+
+        StringBuilder json = new StringBuilder("{\"ok\":true,\"result\":[");
+        for (int i = 0; i < updates; i++) {
+            String text = switch (i % 4) {
+                case 0 -> "NA6" + String.format("%03d", i % 1000);
+                case 1 -> "na6" + String.format("%03d", i % 1000) + "b,-2";
+                case 2 -> "Retain for NA6102 is on the shelf";
+                default -> "ok";
+            };
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"update_id\":").append(900_000_000L + i)
+                    .append(",\"message\":{\"message_id\":").append(i)
+                    .append(",\"from\":{\"id\":42,\"is_bot\":false,\"first_name\":\"Lab\"}")
+                    .append(",\"chat\":{\"id\":-1001234567890,\"title\":\"QC Lab\",\"type\":\"supergroup\"}")
+                    .append(",\"date\":1760000000,\"text\":\"").append(text).append("\"}}");
+        }
+        response = json.append("]}").toString();
+        parsed = telegramApiClient.parseUpdates(response);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseJson() throws Exception {
+        return telegramApiClient.parseUpdates(response);
+    }
+
+    @Benchmark
+    public List<TelegramBotService.BatchCommand> matchCommands() {
+        List<TelegramBotService.BatchCommand> commands = new ArrayList<>();
+        for (Map<String, Object> update : parsed) {
+            TelegramBotService.BatchCommand command = TelegramBotService.parseBatchCommand(update);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    @Benchmark
+    public List<TelegramBotService.BatchCommand> poll() throws Exception {
+        List<TelegramBotService.BatchCommand> commands = new ArrayList<>();
+        for (Map<String, Object> update : telegramApiClient.parseUpdates(response)) {
+            TelegramBotService.BatchCommand command = TelegramBotService.parseBatchCommand(update);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+}
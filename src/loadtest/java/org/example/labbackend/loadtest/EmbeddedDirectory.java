@@ -0,0 +1,89 @@
+package org.example.labbackend.loadtest;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory directory laid out like the lab's Active Directory: users under
+ * {@code ou=users} with {@code sAMAccountName}, {@code displayName} and
+ * {@code mail}, and a service account for pooled lookups. Active Directory
+ * accepts {@code user@domain} as a bind name; that is mapped to the user's DN
+ * here, since an LDAP server would otherwise reject it as an invalid DN.
+ */
+class EmbeddedDirectory implements AutoCloseable {
+
+    static final String BASE_DN = "dc=lab,dc=test";
+    static final String DOMAIN = "lab.test";
+    static final String USER_SEARCH_BASE = "ou=users";
+    static final String SERVICE_DN = "cn=loadtest-service," + BASE_DN;
+    static final String SERVICE_PASSWORD = "loadtest-service-password";
+    static final String USER_PASSWORD = "loadtest-password";
+
+    private final InMemoryDirectoryServer server;
+    private final List<String> usernames = new ArrayList<>();
+
+    EmbeddedDirectory(int users) throws LDAPException {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.addAdditionalBindCredentials(SERVICE_DN, SERVICE_PASSWORD);
+        config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+            @Override
+            public void processSimpleBindRequest(InMemoryInterceptedSimpleBindRequest request) {
+                SimpleBindRequest bind = request.getRequest();
+                String name = bind.getBindDN();
+                if (name.endsWith("@" + DOMAIN)) {
+                    String username = name.substring(0, name.length() - DOMAIN.length() - 1);
+                    request.setRequest(new SimpleBindRequest(userDn(username), bind.getPassword().getValue()));
+                }
+            }
+        });
+
+        server = new InMemoryDirectoryServer(config);
+        server.add(new Entry(BASE_DN, "objectClass: top", "objectClass: domain", "dc: lab"));
+        server.add(new Entry(USER_SEARCH_BASE + "," + BASE_DN,
+                "objectClass: top", "objectClass: organizationalUnit", "ou: users"));
+        for (int i = 1; i <= users; i++) {
+            String username = String.format("tech%02d", i);
+            server.add(new Entry(userDn(username),
+                    "objectClass: top",
+                    "objectClass: person",
+                    "objectClass: inetOrgPerson",
+                    "uid: " + username,
+                    "cn: Lab Tech " + i,
+                    "sn: Tech " + i,
+                    "sAMAccountName: " + username,
+                    "displayName: Lab Tech " + i,
+                    "mail: " + username + "@" + DOMAIN,
+                    "userPassword: " + USER_PASSWORD));
+            usernames.add(username);
+        }
+        server.startListening();
+    }
+
+    private static String userDn(String username) {
+        return "uid=" + username + "," + USER_SEARCH_BASE + "," + BASE_DN;
+    }
+
+    String url() {
+        return "ldap://localhost:" + server.getListenPort();
+    }
+
+    List<String> usernames() {
+        return usernames;
+    }
+
+    @Override
+    public void close() {
+        server.shutDown(true);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.labbackend.loadtest;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * JSON over HTTP to the application under test. One client, and so one
+ * connection pool, is shared by the seeder and every load worker.
+ */
+class LabClient implements AutoCloseable {
+
+    static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private volatile String token;
+
+    LabClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Logs in and sends the token with every later request.
+     */
+    void login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = tryLogin(username, password);
+        if (response.statusCode() != 200) {
+            throw new IOException("Login as " + username + " failed: HTTP " + response.statusCode());
+        }
+        JsonNode body = MAPPER.readTree(response.body());
+        token = body.get("token").asString();
+    }
+
+    /**
+     * A login that leaves this client's token alone, as a load scenario.
+     */
+    HttpResponse<byte[]> tryLogin(String username, String password) throws IOException, InterruptedException {
+        return send("POST", "/api/auth/login", Map.of("username", username, "password", password));
+    }
+
+    HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return send("GET", path, null);
+    }
+
+    HttpResponse<byte[]> send(String method, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Like {@link #send}, for setup calls that must succeed.
+     */
+    JsonNode sendOk(String method, String path, Object body) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send(method, path, body);
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(method + " " + path + " failed: HTTP " + response.statusCode()
+                    + " " + new String(response.body()));
+        }
+        return response.body().length == 0 ? null : MAPPER.readTree(response.body());
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.labbackend.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every measured response time of one endpoint, kept in full so percentiles
+ * are exact rather than bucketed. A minute at a few thousand requests per
+ * second is a few megabytes.
+ */
+class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void record(long elapsedNanos, boolean error) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new Summary(count, errors, count / seconds,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+    }
+
+    /**
+     * Merges several endpoints into one, for the overall row.
+     */
+    static LatencyRecorder combine(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder combined = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            synchronized (recorder) {
+                for (int i = 0; i < recorder.count; i++) {
+                    combined.record(recorder.nanos[i], false);
+                }
+                combined.errors += recorder.errors;
+            }
+        }
+        return combined;
+    }
+
+    // Nearest rank
+    private static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    record Summary(long requests, long errors, double throughput,
+                   double p50Millis, double p95Millis, double p99Millis, double maxMillis) {}
+}
@@ -0,0 +1,152 @@
+package org.example.labbackend.loadtest;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load: {@code concurrency} workers each send a request, wait for
+ * the response and send the next, picking scenarios by weight. The mix is
+ * mostly reads, as on the lab floor: the dashboard, searches and batch
+ * dossiers, with reminders, test results and logins in between. A request is
+ * recorded if it was sent during the measured period, however late its
+ * response arrives; dropping the ones still in flight at the end would drop
+ * the slowest and bias p99 and max low. Requests sent during the warmup are not
+ * recorded.
+ */
+class LoadDriver {
+
+    private final LabClient client;
+    private final LoadTestOptions options;
+    private final List<String> batches;
+    private final List<String> usernames;
+    private final AtomicInteger newBatches = new AtomicInteger();
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private int totalWeight;
+
+    LoadDriver(LabClient client, LoadTestOptions options, List<String> batches, List<String> usernames) {
+        this.client = client;
+        this.options = options;
+        this.batches = batches;
+        this.usernames = usernames;
+
+        scenario("GET /api/batches/stats/{year}", 15, random ->
+                client.get("/api/batches/stats/" + (Seeder.FIRST_YEAR + random.nextInt(Seeder.YEARS))));
+        scenario("GET /api/batches/stats/years", 5, random ->
+                client.get("/api/batches/stats/years"));
+        scenario("GET /api/search/batches", 15, random ->
+                client.get("/api/search/batches?q=" + fragment(random)));
+        scenario("GET /api/qc/search", 10, random ->
+                client.get("/api/qc/search?batch=" + fragment(random)));
+        scenario("GET /api/testing/search", 10, random ->
+                client.get("/api/testing/search?batch=" + fragment(random)));
+        scenario("GET /api/products/autocomplete", 10, random -> {
+            String family = Seeder.PRODUCT_FAMILIES[random.nextInt(Seeder.PRODUCT_FAMILIES.length)];
+            return client.get("/api/products/autocomplete?prefix="
+                    + URLEncoder.encode(family.substring(0, 2 + random.nextInt(3)), StandardCharsets.UTF_8));
+        });
+        scenario("GET /api/batches/{batch}/dossier", 15, random ->
+                client.get("/api/batches/" + batch(random) + "/dossier"));
+        scenario("GET /api/reminders/pending", 5, random ->
+                client.get("/api/reminders/pending"));
+        scenario("POST /api/reminders", 5, random ->
+                client.send("POST", "/api/reminders", Map.of(
+                        "batch", String.format("ZL9%05d", newBatches.incrementAndGet()),
+                        "dayOffset", 0)));
+        scenario("POST /api/testing", 8, random -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("batch", batch(random));
+            row.put("code", String.valueOf(Seeder.FIRST_PRODUCT_CODE + random.nextInt(options.products())));
+            row.put("date", LocalDate.now());
+            row.put("pen60x", String.valueOf(265 + random.nextInt(60)));
+            return client.send("POST", "/api/testing", row);
+        });
+        scenario("POST /api/auth/login", 2, random ->
+                client.tryLogin(usernames.get(random.nextInt(usernames.size())), EmbeddedDirectory.USER_PASSWORD));
+    }
+
+    private void scenario(String name, int weight, Request request) {
+        scenarios.add(new Scenario(name, weight, request));
+        recorders.put(name, new LatencyRecorder());
+        totalWeight += weight;
+    }
+
+    private String batch(ThreadLocalRandom random) {
+        return batches.get(random.nextInt(batches.size()));
+    }
+
+    // Four characters of a real batch id, e.g. "A610", which matches across plants
+    private String fragment(ThreadLocalRandom random) {
+        return batch(random).substring(1, 5);
+    }
+
+    /**
+     * Runs the warmup and the measured period, and returns each endpoint's
+     * measured responses. Returns once every worker has received the response to
+     * its last request, so none is still being recorded while the caller reports.
+     */
+    Map<String, LatencyRecorder> run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long stopAt = measureFrom + options.duration().toNanos();
+
+        System.out.println("Warming up for " + options.warmup() + ", then measuring for " + options.duration()
+                + " with " + options.concurrency() + " workers");
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                workers.submit(() -> work(measureFrom, stopAt));
+            }
+        }
+        return recorders;
+    }
+
+    private void work(long measureFrom, long stopAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < stopAt) {
+            Scenario scenario = pick(random);
+            long sent = System.nanoTime();
+            boolean error;
+            try {
+                error = scenario.request().send(random).statusCode() >= 400;
+            } catch (IOException e) {
+                error = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long received = System.nanoTime();
+            if (sent >= measureFrom && sent < stopAt) {
+                recorders.get(scenario.name()).record(received - sent, error);
+            }
+        }
+    }
+
+    private Scenario pick(ThreadLocalRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up to " + totalWeight);
+    }
+
+    @FunctionalInterface
+    interface Request {
+        HttpResponse<byte[]> send(ThreadLocalRandom random) throws IOException, InterruptedException;
+    }
+
+    record Scenario(String name, int weight, Request request) {}
+}
@@ -0,0 +1,126 @@
+package org.example.labbackend.loadtest;
+
+import org.example.labbackend.EmbeddedDatabase;
+import org.example.labbackend.LabBackendApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test. Starts an embedded MariaDB, an in-memory LDAP directory
+ * and a stub Telegram API, boots the application against them, seeds it with
+ * {@code --batches} batches of history and drives a mixed read/write load. Prints
+ * throughput and p50/p95/p99 per endpoint and writes them to {@code --report}
+ * as JSON, so runs can be compared across releases.
+ *
+ * Run with {@code mvn -Ploadtest -DskipTests verify}; see the README for options.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            run(LoadTestOptions.parse(args));
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // The embedded database's process watchers are non-daemon threads
+        System.exit(status);
+    }
+
+    private static void run(LoadTestOptions options) throws Exception {
+        System.out.println("Load test options: " + options);
+
+        // Closed in reverse: the application stops before the services it uses
+        try (EmbeddedDatabase database = new EmbeddedDatabase();
+             EmbeddedDirectory directory = new EmbeddedDirectory(options.users());
+             TelegramStub telegram = new TelegramStub(options.telegramLatency());
+             ConfigurableApplicationContext context = start(options, database, directory, telegram);
+             LabClient client = new LabClient(
+                     context.getEnvironment().getRequiredProperty("local.server.port", Integer.class))) {
+
+            List<String> usernames = directory.usernames();
+            client.login(usernames.getFirst(), EmbeddedDirectory.USER_PASSWORD);
+
+            List<String> batches = new Seeder(client, options).seed();
+            Map<String, LatencyRecorder> recorders = new LoadDriver(client, options, batches, usernames).run();
+
+            report(options, recorders, telegram.messagesSent());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options, EmbeddedDatabase database,
+                                                        EmbeddedDirectory directory, TelegramStub telegram) {
+        return SpringApplication.run(LabBackendApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=" + database.url(),
+                "--spring.datasource.driver-class-name=org.mariadb.jdbc.Driver",
+                "--spring.datasource.username=root",
+                "--spring.datasource.password=",
+                "--spring.threads.virtual.enabled=" + options.virtualThreads(),
+                "--ldap.url=" + directory.url(),
+                "--ldap.base.dn=" + EmbeddedDirectory.BASE_DN,
+                "--ldap.domain=" + EmbeddedDirectory.DOMAIN,
+                "--ldap.user.search.base=" + EmbeddedDirectory.USER_SEARCH_BASE,
+                "--ldap.service.user=" + EmbeddedDirectory.SERVICE_DN,
+                "--ldap.service.password=" + EmbeddedDirectory.SERVICE_PASSWORD,
+                "--telegram.bot.enabled=true",
+                "--telegram.bot.token=123456:loadtest",
+                "--telegram.chat.id=-1001234567890",
+                "--telegram.api.base-url=" + telegram.baseUrl(),
+                "--telegram.polling.timeout=1");
+    }
+
+    private static void report(LoadTestOptions options, Map<String, LatencyRecorder> recorders, long telegramMessages)
+            throws Exception {
+        double seconds = options.duration().toMillis() / 1000.0;
+
+        Map<String, LatencyRecorder.Summary> endpoints = new LinkedHashMap<>();
+        recorders.forEach((endpoint, recorder) -> endpoints.put(endpoint, recorder.summarize(seconds)));
+        LatencyRecorder.Summary overall = LatencyRecorder.combine(recorders.values()).summarize(seconds);
+
+        System.out.println();
+        System.out.printf("%-34s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        endpoints.forEach(LoadTest::printRow);
+        printRow("overall", overall);
+        System.out.println("Telegram messages sent: " + telegramMessages);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", options.concurrency());
+        settings.put("duration", options.duration().toString());
+        settings.put("warmup", options.warmup().toString());
+        settings.put("virtualThreads", options.virtualThreads());
+        settings.put("batches", options.batches());
+        settings.put("testingRowsPerBatch", options.testingRowsPerBatch());
+        settings.put("products", options.products());
+        settings.put("users", options.users());
+        settings.put("telegramLatency", options.telegramLatency().toString());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("options", settings);
+        report.put("endpoints", endpoints);
+        report.put("overall", overall);
+        report.put("telegramMessagesSent", telegramMessages);
+
+        if (options.report().getParent() != null) {
+            Files.createDirectories(options.report().getParent());
+        }
+        LabClient.MAPPER.writerWithDefaultPrettyPrinter().writeValue(options.report().toFile(), report);
+        System.out.println("Report written to " + options.report().toAbsolutePath());
+    }
+
+    private static void printRow(String endpoint, LatencyRecorder.Summary summary) {
+        System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, summary.requests(), summary.errors(), summary.throughput(),
+                summary.p50Millis(), summary.p95Millis(), summary.p99Millis(), summary.maxMillis());
+    }
+}
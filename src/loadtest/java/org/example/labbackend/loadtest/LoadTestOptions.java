@@ -0,0 +1,56 @@
+package org.example.labbackend.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings for one load-test run, given as {@code --name=value} arguments.
+ */
+public record LoadTestOptions(
+        int concurrency,
+        Duration duration,
+        Duration warmup,
+        boolean virtualThreads,
+        int batches,
+        int testingRowsPerBatch,
+        int products,
+        int users,
+        Duration telegramLatency,
+        Path report) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("concurrency", "32")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Duration.parse(values.getOrDefault("warmup", "PT15S")),
+                Boolean.parseBoolean(values.getOrDefault("virtual-threads", "true")),
+                Integer.parseInt(values.getOrDefault("batches", "20000")),
+                Integer.parseInt(values.getOrDefault("testing-rows-per-batch", "3")),
+                Integer.parseInt(values.getOrDefault("products", "500")),
+                Integer.parseInt(values.getOrDefault("users", "40")),
+                Duration.parse(values.getOrDefault("telegram-latency", "PT0.05S")),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json")));
+
+        values.keySet().removeAll(Set.of("concurrency", "duration", "warmup", "virtual-threads", "batches",
+                "testing-rows-per-batch", "products", "users", "telegram-latency", "report"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return options;
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.labbackend.loadtest;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the empty database through the application's own bulk endpoints, so
+ * the caches, search index and monthly_stats rollup are built the way they are
+ * in production. The data is generated from a fixed seed: every run with the
+ * same options sees the same rows.
+ *
+ * Batches are spread over three plants and every month from 2020 to 2026, each
+ * with a QC log entry and {@code testing-rows-per-batch} testing rows. The most
+ * recent ones also have pending reminders.
+ */
+class Seeder {
+
+    static final String[] PRODUCT_FAMILIES = {
+            "Lithium Complex", "Calcium Sulfonate", "Aluminum Complex", "Polyurea", "Moly EP", "Food Grade"
+    };
+    static final int FIRST_PRODUCT_CODE = 1000;
+    static final int FIRST_YEAR = 2020;
+    static final int YEARS = 7;
+
+    private static final char[] PLANTS = {'N', 'S', 'W'};
+    private static final int CHUNK = 2000;
+    private static final int REMINDER_BATCHES = 200;
+
+    private final LabClient client;
+    private final LoadTestOptions options;
+    private final Random random = new Random(42);
+
+    Seeder(LabClient client, LoadTestOptions options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * The seeded batch ids, oldest first.
+     */
+    List<String> seed() throws IOException, InterruptedException {
+        for (int i = 0; i < options.products(); i++) {
+            client.sendOk("POST", "/api/products", Map.of(
+                    "code", FIRST_PRODUCT_CODE + i,
+                    "name", PRODUCT_FAMILIES[i % PRODUCT_FAMILIES.length] + " " + (i / PRODUCT_FAMILIES.length + 1)));
+        }
+        System.out.println("Seeded " + options.products() + " products");
+
+        List<String> batches = new ArrayList<>(options.batches());
+        List<Map<String, Object>> batchRows = new ArrayList<>();
+        List<Map<String, Object>> qcRows = new ArrayList<>();
+        List<Map<String, Object>> testingRows = new ArrayList<>();
+        for (int i = 0; i < options.batches(); i++) {
+            String batch = batchId(i);
+            batches.add(batch);
+            int code = FIRST_PRODUCT_CODE + random.nextInt(options.products());
+            LocalDateTime start = startOf(i);
+
+            Map<String, Object> monthlyBatch = new LinkedHashMap<>();
+            monthlyBatch.put("batch", batch);
+            monthlyBatch.put("code", code);
+            monthlyBatch.put("dateStart", start);
+            monthlyBatch.put("dateEnd", start.plusHours(6 + random.nextInt(18)));
+            monthlyBatch.put("lbs", 2_000 + random.nextInt(40) * 500);
+            monthlyBatch.put("released", random.nextInt(20) == 0 ? "No" : "Yes");
+            monthlyBatch.put("type", random.nextInt(10) == 0 ? "Rework" : "Production");
+            batchRows.add(monthlyBatch);
+
+            Map<String, Object> qcLog = new LinkedHashMap<>();
+            qcLog.put("batch", batch);
+            qcLog.put("code", String.valueOf(code));
+            qcLog.put("suffix", random.nextInt(8) == 0 ? "B" : "");
+            qcLog.put("pen60x", String.valueOf(265 + random.nextInt(60)));
+            qcLog.put("dropPoint", String.valueOf(480 + random.nextInt(80)));
+            qcLog.put("date", start.toLocalDate().plusDays(1).toString());
+            qcLog.put("releasedBy", String.format("tech%02d", 1 + random.nextInt(options.users())));
+            qcRows.add(qcLog);
+
+            for (int t = 0; t < options.testingRowsPerBatch(); t++) {
+                testingRows.add(testingRow(batch, code, start.toLocalDate().plusDays(t)));
+            }
+
+            if (batchRows.size() == CHUNK) {
+                flush(batchRows, qcRows, testingRows);
+                System.out.println("Seeded " + (i + 1) + " / " + options.batches() + " batches");
+            }
+        }
+        flush(batchRows, qcRows, testingRows);
+
+        List<Map<String, Object>> reminders = new ArrayList<>();
+        for (String batch : batches.subList(Math.max(0, batches.size() - REMINDER_BATCHES), batches.size())) {
+            reminders.add(Map.of("batch", batch, "dayOffset", 0));
+        }
+        if (!reminders.isEmpty()) {
+            client.sendOk("POST", "/api/reminders/bulk", reminders);
+        }
+
+        client.sendOk("POST", "/api/batches/stats/rebuild", null);
+        System.out.println("Seeded " + batches.size() + " batches, " + batches.size() * options.testingRowsPerBatch()
+                + " testing rows and reminders for " + reminders.size() + " batches");
+        return batches;
+    }
+
+    private void flush(List<Map<String, Object>> batchRows, List<Map<String, Object>> qcRows,
+                       List<Map<String, Object>> testingRows) throws IOException, InterruptedException {
+        if (!batchRows.isEmpty()) {
+            client.sendOk("PUT", "/api/batches/bulk", batchRows);
+            client.sendOk("PUT", "/api/qc/bulk", qcRows);
+        }
+        for (int from = 0; from < testingRows.size(); from += CHUNK) {
+            client.sendOk("POST", "/api/testing/bulk", testingRows.subList(from, Math.min(from + CHUNK, testingRows.size())));
+        }
+        batchRows.clear();
+        qcRows.clear();
+        testingRows.clear();
+    }
+
+    /**
+     * A sparse row like the lab's: penetrations and drop point, now and then
+     * a copper corrosion or oil bleed result, everything else untested.
+     */
+    Map<String, Object> testingRow(String batch, int code, LocalDate date) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("batch", batch);
+        row.put("code", String.valueOf(code));
+        row.put("date", date);
+        row.put("pen0x", String.valueOf(255 + random.nextInt(60)));
+        row.put("pen60x", String.valueOf(265 + random.nextInt(60)));
+        row.put("dropPoint", String.valueOf(480 + random.nextInt(80)));
+        if (random.nextInt(5) == 0) {
+            row.put("copperCorrosion", "1b");
+        }
+        if (random.nextInt(10) == 0) {
+            row.put("oilBleed", String.format("%.1f", 0.5 + random.nextDouble() * 4));
+        }
+        return row;
+    }
+
+    /**
+     * {@code i} spread over plants, then months, then years, then sequence
+     * numbers: plant letter, month letter A-L, last digit of the year and a
+     * three-digit sequence, e.g. {@code NA6102}.
+     */
+    static String batchId(int i) {
+        int rest = i / PLANTS.length;
+        int month = rest % 12;
+        int year = rest / 12 % YEARS;
+        int sequence = rest / (12 * YEARS);
+        if (sequence > 999) {
+            throw new IllegalArgumentException("Too many batches for three-digit sequence numbers: " + i);
+        }
+        return String.format("%c%c%d%03d", PLANTS[i % PLANTS.length], (char) ('A' + month), year, sequence);
+    }
+
+    private static LocalDateTime startOf(int i) {
+        int rest = i / PLANTS.length;
+        int month = rest % 12;
+        int year = FIRST_YEAR + rest / 12 % YEARS;
+        int sequence = rest / (12 * YEARS);
+        return LocalDateTime.of(year, month + 1, 1 + sequence % 28, 6, 0).plusMinutes(sequence % 60);
+    }
+}
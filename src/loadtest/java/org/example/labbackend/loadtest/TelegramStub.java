@@ -0,0 +1,93 @@
+package org.example.labbackend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for api.telegram.org. getUpdates waits out its long-poll timeout
+ * (capped at one second) and returns no updates; sendMessage waits
+ * {@code latency} and accepts every message.
+ */
+class TelegramStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Duration latency;
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    TelegramStub(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    long messagesSent() {
+        return messagesSent.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/getUpdates")) {
+                sleep(Duration.ofSeconds(Math.min(1, pollTimeoutSeconds(exchange.getRequestURI()))));
+                respond(exchange, 200, "{\"ok\":true,\"result\":[]}");
+            } else if (path.endsWith("/sendMessage")) {
+                sleep(latency);
+                long id = messagesSent.incrementAndGet();
+                respond(exchange, 200, "{\"ok\":true,\"result\":{\"message_id\":" + id + "}}");
+            } else {
+                respond(exchange, 404, "{\"ok\":false,\"error_code\":404,\"description\":\"Not Found\"}");
+            }
+        }
+    }
+
+    private static long pollTimeoutSeconds(URI uri) {
+        String query = uri.getQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("timeout=")) {
+                    return Long.parseLong(parameter.substring("timeout=".length()));
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
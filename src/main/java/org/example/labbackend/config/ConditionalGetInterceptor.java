@@ -0,0 +1,82 @@
+package org.example.labbackend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.labbackend.service.TableVersions;
+import org.example.labbackend.service.TableVersions.Table;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ETag / Last-Modified support for the data endpoints, driven by
+ * {@link TableVersions}. A GET whose tables have not changed since the client's
+ * copy is answered with 304 here, before the controller or any repository runs.
+ * Writes bump their tables themselves, as soon as the change is committed, so a
+ * client that reads right after a write's response never gets the old tag.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final Map<String, Table> RESOURCES = Map.of(
+            "batches", Table.BATCHES,
+            "qc", Table.QC,
+            "testing", Table.TESTING,
+            "retains", Table.RETAINS,
+            "reminders", Table.REMINDERS,
+            "products", Table.PRODUCTS);
+
+    private final TableVersions tableVersions;
+
+    public ConditionalGetInterceptor(TableVersions tableVersions) {
+        this.tableVersions = tableVersions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        Set<Table> tables = tablesFor(request);
+        if (tables == null) {
+            return true;
+        }
+        // Revalidate on every poll instead of letting the browser guess a freshness lifetime
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        return !webRequest.checkNotModified(tableVersions.etag(tables), tableVersions.lastModified(tables).toEpochMilli());
+    }
+
+    /**
+     * Tables a request under /api reads, or null for paths that are not
+     * versioned: auth, the Telegram test endpoint, and batch search, whose
+     * in-memory index also changes on its own rebuilds.
+     */
+    static Set<Table> tablesFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String[] segments = path.split("/");
+        // ["", "api", resource, ...]
+        if (segments.length < 3 || !"api".equals(segments[1])) {
+            return null;
+        }
+        String resource = segments[2];
+
+        if ("export".equals(resource)) {
+            Table table = segments.length > 3 ? RESOURCES.get(segments[3]) : null;
+            return table != null ? EnumSet.of(table) : null;
+        }
+        if ("reminders".equals(resource) && segments.length > 3 && "test-telegram".equals(segments[3])) {
+            return null;
+        }
+        if ("batches".equals(resource) && segments.length > 4 && "dossier".equals(segments[4])) {
+            return EnumSet.allOf(Table.class);
+        }
+        Table table = RESOURCES.get(resource);
+        return table != null ? EnumSet.of(table) : null;
+    }
+}
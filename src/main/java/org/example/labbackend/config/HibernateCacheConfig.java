@@ -0,0 +1,64 @@
+package org.example.labbackend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Second-level and query cache for Hibernate, held in-process by Caffeine through
+ * JCache. The regions are created here with explicit size and TTL bounds instead
+ * of relying on Hibernate's unbounded defaults.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String BATCHES_REGION = "batches";
+    public static final String QC_REGION = "qc";
+    public static final String PRODUCTS_REGION = "products";
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${hibernate-cache.entity.max-size:20000}") long entityMaxSize,
+            @Value("${hibernate-cache.entity.ttl:PT1H}") Duration entityTtl,
+            @Value("${hibernate-cache.query.max-size:2000}") long queryMaxSize,
+            @Value("${hibernate-cache.query.ttl:PT10M}") Duration queryTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("labbackend-hibernate"), getClass().getClassLoader());
+
+        for (String region : new String[]{BATCHES_REGION, QC_REGION, PRODUCTS_REGION}) {
+            cacheManager.createCache(region, bounded(entityMaxSize, entityTtl));
+        }
+        cacheManager.createCache(QUERY_RESULTS_REGION, bounded(queryMaxSize, queryTtl));
+        // One entry per table; evicting them would make cached query results look current
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+}
@@ -36,9 +36,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                String username = jwtService.extractUsername(jwt);
+                String username = jwtService.authenticate(jwt);
 
-                if (username != null && jwtService.isTokenValid(jwt, username)) {
+                if (username != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             username,
                             null,
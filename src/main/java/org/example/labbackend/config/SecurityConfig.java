@@ -35,6 +35,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/reminders/test-telegram").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").authenticated()
                 // Protected endpoints - require authentication
                 .requestMatchers("/api/**").authenticated()
                 // Allow everything else (for now)
@@ -3,52 +3,83 @@ package org.example.labbackend.controller;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.labbackend.service.JwtService;
-import org.example.labbackend.service.LdapAuthService;
 import org.example.labbackend.service.LdapAuthService.LdapUserInfo;
+import org.example.labbackend.service.LoginGate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    private final LdapAuthService ldapAuthService;
+    private final LoginGate loginGate;
     private final JwtService jwtService;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    public AuthController(LdapAuthService ldapAuthService, JwtService jwtService) {
-        this.ldapAuthService = ldapAuthService;
+    public AuthController(LoginGate loginGate, JwtService jwtService) {
+        this.loginGate = loginGate;
         this.jwtService = jwtService;
     }
 
+    /**
+     * Completes asynchronously, so the request thread is released while the
+     * directory answers. See {@link LoginGate} for the limits.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request, HttpServletResponse response) {
-        LdapUserInfo userInfo = ldapAuthService.authenticate(request.username(), request.password());
-
-        if (userInfo == null) {
-            return ResponseEntity.status(401).body(Map.of(
-                    "error", "Invalid credentials",
-                    "message", "Username or password is incorrect"
-            ));
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
+        // An empty password would be an unauthenticated bind, which Active Directory accepts
+        if (request.username() == null || request.username().isBlank()
+                || request.password() == null || request.password().isEmpty()) {
+            return CompletableFuture.completedFuture(invalidCredentials());
         }
 
+        return loginGate.authenticate(request.username(), request.password())
+                .handle((userInfo, error) -> {
+                    if (error != null) {
+                        System.err.println("Login unavailable for user: " + request.username() + " - " + error);
+                        return ResponseEntity.status(503)
+                                .header(HttpHeaders.RETRY_AFTER, "5")
+                                .body(Map.of(
+                                        "error", "Login unavailable",
+                                        "message", "The directory server is busy, please try again shortly"
+                                ));
+                    }
+                    if (userInfo == null) {
+                        return invalidCredentials();
+                    }
+                    return loginSucceeded(userInfo);
+                });
+    }
+
+    private ResponseEntity<?> invalidCredentials() {
+        return ResponseEntity.status(401).body(Map.of(
+                "error", "Invalid credentials",
+                "message", "Username or password is incorrect"
+        ));
+    }
+
+    private ResponseEntity<?> loginSucceeded(LdapUserInfo userInfo) {
         String token = jwtService.generateToken(userInfo.username());
 
-        // Set HTTP-only cookie for security
-        Cookie cookie = new Cookie("auth_token", token);
-        cookie.setHttpOnly(true);
-        cookie.setSecure(false); // Set to true in production with HTTPS
-        cookie.setPath("/");
-        cookie.setMaxAge((int) (jwtExpiration / 1000)); // Convert ms to seconds
-        response.addCookie(cookie);
+        // Set HTTP-only cookie for security. Sent as a header because this runs off the request thread.
+        ResponseCookie cookie = ResponseCookie.from("auth_token", token)
+                .httpOnly(true)
+                .secure(false) // Set to true in production with HTTPS
+                .path("/")
+                .maxAge(Duration.ofMillis(jwtExpiration))
+                .build();
 
         Map<String, Object> responseBody = new HashMap<>();
         responseBody.put("success", true);
@@ -59,7 +90,9 @@ public class AuthController {
                 "email", userInfo.email() != null ? userInfo.email() : ""
         ));
 
-        return ResponseEntity.ok(responseBody);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                .body(responseBody);
     }
 
     @PostMapping("/logout")
@@ -0,0 +1,31 @@
+package org.example.labbackend.controller;
+
+import org.example.labbackend.service.SecondLevelCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final SecondLevelCache secondLevelCache;
+
+    public CacheController(SecondLevelCache secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return secondLevelCache.statistics();
+    }
+
+    // For rows changed directly in the database
+    @DeleteMapping
+    public ResponseEntity<Void> evictAll() {
+        secondLevelCache.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+
+}
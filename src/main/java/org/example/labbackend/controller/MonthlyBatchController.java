@@ -1,30 +1,79 @@
 package org.example.labbackend.controller;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.example.labbackend.dto.BatchDossier;
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.CursorPage;
 import org.example.labbackend.dto.MonthlyStatsDTO;
+import org.example.labbackend.dto.PageCursor;
 import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.repository.FieldProjectionQuery;
 import org.example.labbackend.repository.MonthlyBatchRepository;
+import org.example.labbackend.service.BatchDossierService;
+import org.example.labbackend.service.BatchUpsertService;
+import org.example.labbackend.service.MonthlyBatchService;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.Year;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/batches")
 public class MonthlyBatchController {
 
     private final MonthlyBatchRepository monthlyBatchRepository;
-
-    public MonthlyBatchController(MonthlyBatchRepository monthlyBatchRepository) {
+    private final MonthlyBatchService monthlyBatchService;
+    private final BatchDossierService batchDossierService;
+    private final BatchUpsertService batchUpsertService;
+    private final FieldProjectionQuery fieldProjectionQuery;
+
+    public MonthlyBatchController(MonthlyBatchRepository monthlyBatchRepository,
+                                  MonthlyBatchService monthlyBatchService,
+                                  BatchDossierService batchDossierService,
+                                  BatchUpsertService batchUpsertService,
+                                  FieldProjectionQuery fieldProjectionQuery) {
         this.monthlyBatchRepository = monthlyBatchRepository;
+        this.monthlyBatchService = monthlyBatchService;
+        this.batchDossierService = batchDossierService;
+        this.batchUpsertService = batchUpsertService;
+        this.fieldProjectionQuery = fieldProjectionQuery;
     }
 
     @GetMapping
-    public List<MonthlyBatch> getAll() {
-        return monthlyBatchRepository.findAllOrderByDateDesc();
+    public ResponseEntity<List<?>> getAll(@RequestParam(required = false) List<String> fields) {
+        return select(fields, monthlyBatchRepository::findAllOrderByDateDesc,
+                null, Sort.by(Sort.Direction.DESC, "dateStart"));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<MonthlyBatch>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_LIMIT) int limit) {
+        int size = PageCursor.clampLimit(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<MonthlyBatch> rows;
+        try {
+            PageCursor after = PageCursor.decode(cursor);
+            if (after == null) {
+                rows = monthlyBatchRepository.findFirstPage(fetch);
+            } else if (after.key() == null) {
+                rows = monthlyBatchRepository.findUndatedPageAfter(after.id(), fetch);
+            } else {
+                rows = monthlyBatchRepository.findPageAfter(LocalDateTime.parse(after.key()), after.id(), fetch);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, size, m -> new PageCursor(
+                m.getDateStart() != null ? m.getDateStart().toString() : null,
+                m.getBatch())));
     }
 
     @GetMapping("/{batch}")
@@ -34,70 +83,102 @@ public class MonthlyBatchController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{batch}/dossier")
+    public ResponseEntity<BatchDossier> getDossier(@PathVariable String batch) {
+        return batchDossierService.assemble(batch)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/code/{code}")
-    public List<MonthlyBatch> getByCode(@PathVariable Integer code) {
-        return monthlyBatchRepository.findByCode(code);
+    public ResponseEntity<List<?>> getByCode(@PathVariable Integer code, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> monthlyBatchRepository.findByCode(code),
+                FieldProjectionQuery.equal("code", code), Sort.unsorted());
     }
 
     @GetMapping("/type/{type}")
-    public List<MonthlyBatch> getByType(@PathVariable String type) {
-        return monthlyBatchRepository.findByType(type);
+    public ResponseEntity<List<?>> getByType(@PathVariable String type, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> monthlyBatchRepository.findByType(type),
+                FieldProjectionQuery.equal("type", type), Sort.unsorted());
     }
 
     @GetMapping("/released/{released}")
-    public List<MonthlyBatch> getByReleased(@PathVariable String released) {
-        return monthlyBatchRepository.findByReleased(released);
+    public ResponseEntity<List<?>> getByReleased(@PathVariable String released, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> monthlyBatchRepository.findByReleased(released),
+                FieldProjectionQuery.equal("released", released), Sort.unsorted());
     }
 
     @GetMapping("/daterange")
-    public List<MonthlyBatch> getByDateRange(
+    public ResponseEntity<List<?>> getByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        return monthlyBatchRepository.findByDateRange(start, end);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> monthlyBatchRepository.findByDateRange(start, end),
+                (cb, m) -> cb.between(m.get("dateStart"), start, end), Sort.unsorted());
+    }
+
+    @GetMapping("/period/{year}/{month}")
+    public ResponseEntity<List<?>> getByPeriod(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) String plant,
+            @RequestParam(required = false) List<String> fields) {
+        if (plant == null || plant.isBlank()) {
+            return select(fields, () -> monthlyBatchRepository.findByBatchCodeYearAndBatchCodeMonth(year, month),
+                    FieldProjectionQuery.batchPeriod(year, month, null), Sort.unsorted());
+        }
+        String plantCode = plant.toUpperCase();
+        return select(fields, () -> monthlyBatchRepository.findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(plantCode, year, month),
+                FieldProjectionQuery.batchPeriod(year, month, plantCode), Sort.unsorted());
     }
 
     @PostMapping
     public MonthlyBatch create(@RequestBody MonthlyBatch monthlyBatch) {
-        return monthlyBatchRepository.save(monthlyBatch);
+        return monthlyBatchService.save(monthlyBatch);
+    }
+
+    @PutMapping("/bulk")
+    public BulkImportResult bulkUpsert(@RequestBody List<MonthlyBatch> batches) {
+        return batchUpsertService.upsertBatches(batches);
     }
 
     @PutMapping("/{batch}")
     public ResponseEntity<MonthlyBatch> update(@PathVariable String batch, @RequestBody MonthlyBatch monthlyBatch) {
-        if (!monthlyBatchRepository.existsById(batch)) {
-            return ResponseEntity.notFound().build();
-        }
-        monthlyBatch.setBatch(batch);
-        return ResponseEntity.ok(monthlyBatchRepository.save(monthlyBatch));
+        return monthlyBatchService.update(batch, monthlyBatch)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{batch}")
     public ResponseEntity<Void> delete(@PathVariable String batch) {
-        if (!monthlyBatchRepository.existsById(batch)) {
+        if (!monthlyBatchService.delete(batch)) {
             return ResponseEntity.notFound().build();
         }
-        monthlyBatchRepository.deleteById(batch);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<String> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Map.of("deleted", monthlyBatchService.deleteAll(ids)));
+    }
+
     @GetMapping("/stats/years")
     public List<Integer> getAvailableYears() {
-        return monthlyBatchRepository.getAvailableYears();
+        return monthlyBatchService.getAvailableYears();
     }
 
     @GetMapping("/stats/{year}")
     public List<MonthlyStatsDTO> getMonthlyStats(@PathVariable int year) {
-        List<Object[]> results = monthlyBatchRepository.getMonthlyStatsByYear(year);
-        return results.stream()
-                .map(row -> new MonthlyStatsDTO(
-                        ((Number) row[0]).intValue(),
-                        ((Number) row[1]).intValue(),
-                        (String) row[2],
-                        ((Number) row[3]).longValue(),
-                        ((Number) row[4]).longValue(),
-                        ((Number) row[5]).longValue(),
-                        ((Number) row[6]).longValue()
-                ))
-                .toList();
+        return monthlyBatchService.getMonthlyStats(year);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Void> rebuildStats() {
+        monthlyBatchService.rebuildStats();
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/stats")
@@ -105,4 +186,17 @@ public class MonthlyBatchController {
         return getMonthlyStats(Year.now().getValue());
     }
 
+    // Full entities unless ?fields= asks for a subset of columns
+    private ResponseEntity<List<?>> select(List<String> fields, Supplier<List<MonthlyBatch>> entities,
+                                           FieldProjectionQuery.Filter<MonthlyBatch> filter, Sort sort) {
+        if (fields == null || fields.isEmpty()) {
+            return ResponseEntity.ok(entities.get());
+        }
+        try {
+            return ResponseEntity.ok(fieldProjectionQuery.select(MonthlyBatch.class, fields, filter, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 }
@@ -4,57 +4,89 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.example.labbackend.model.ProductName;
 import org.example.labbackend.repository.ProductNameRepository;
+import org.example.labbackend.service.ProductDirectory;
+import org.example.labbackend.service.TableVersions;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductNameController {
 
     private final ProductNameRepository productNameRepository;
+    private final ProductDirectory productDirectory;
+    private final TableVersions tableVersions;
 
-    public ProductNameController(ProductNameRepository productNameRepository) {
+    public ProductNameController(ProductNameRepository productNameRepository, ProductDirectory productDirectory,
+                                 TableVersions tableVersions) {
         this.productNameRepository = productNameRepository;
+        this.productDirectory = productDirectory;
+        this.tableVersions = tableVersions;
     }
 
     @GetMapping
     public List<ProductName> getAll() {
-        return productNameRepository.findAll();
+        return productDirectory.findAll();
     }
 
     @GetMapping("/{code}")
     public ResponseEntity<ProductName> getByCode(@PathVariable Integer code) {
-        return productNameRepository.findById(code)
+        return productDirectory.findByCode(code)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
     public List<ProductName> searchByName(@RequestParam String name) {
-        return productNameRepository.findByNameContainingIgnoreCase(name);
+        return productDirectory.search(name);
+    }
+
+    @GetMapping("/autocomplete")
+    public List<ProductName> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productDirectory.autocomplete(prefix, Math.max(1, Math.min(limit, 100)));
     }
 
     @PostMapping
     public ProductName create(@RequestBody ProductName productName) {
-        return productNameRepository.save(productName);
+        ProductName saved = productNameRepository.save(productName);
+        productDirectory.invalidate();
+        tableVersions.bump(TableVersions.Table.PRODUCTS);
+        return saved;
     }
 
     @PutMapping("/{code}")
     public ResponseEntity<ProductName> update(@PathVariable Integer code, @RequestBody ProductName productName) {
-        if (!productNameRepository.existsById(code)) {
+        if (productNameRepository.updateName(code, productName.getName()) == 0) {
             return ResponseEntity.notFound().build();
         }
+        productDirectory.invalidate();
+        tableVersions.bump(TableVersions.Table.PRODUCTS);
         productName.setCode(code);
-        return ResponseEntity.ok(productNameRepository.save(productName));
+        return ResponseEntity.ok(productName);
     }
 
     @DeleteMapping("/{code}")
     public ResponseEntity<Void> delete(@PathVariable Integer code) {
-        if (!productNameRepository.existsById(code)) {
+        if (productNameRepository.deleteRow(code) == 0) {
             return ResponseEntity.notFound().build();
         }
-        productNameRepository.deleteById(code);
+        productDirectory.invalidate();
+        tableVersions.bump(TableVersions.Table.PRODUCTS);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int deleted = productNameRepository.deleteRows(ids);
+        productDirectory.invalidate();
+        tableVersions.bump(TableVersions.Table.PRODUCTS);
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+
 }
@@ -1,25 +1,71 @@
 package org.example.labbackend.controller;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.CursorPage;
+import org.example.labbackend.dto.PageCursor;
 import org.example.labbackend.model.QcLog;
+import org.example.labbackend.repository.FieldProjectionQuery;
 import org.example.labbackend.repository.QcLogRepository;
+import org.example.labbackend.service.BatchSearchIndex;
+import org.example.labbackend.service.BatchUpsertService;
+import org.example.labbackend.service.TableVersions;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/qc")
 public class QcController {
 
     private final QcLogRepository qcLogRepository;
+    private final BatchSearchIndex batchSearchIndex;
+    private final BatchUpsertService batchUpsertService;
+    private final FieldProjectionQuery fieldProjectionQuery;
+    private final TableVersions tableVersions;
 
-    public QcController(QcLogRepository qcLogRepository) {
+    public QcController(QcLogRepository qcLogRepository,
+                        BatchSearchIndex batchSearchIndex,
+                        BatchUpsertService batchUpsertService,
+                        FieldProjectionQuery fieldProjectionQuery,
+                        TableVersions tableVersions) {
         this.qcLogRepository = qcLogRepository;
+        this.batchSearchIndex = batchSearchIndex;
+        this.batchUpsertService = batchUpsertService;
+        this.fieldProjectionQuery = fieldProjectionQuery;
+        this.tableVersions = tableVersions;
     }
 
     @GetMapping
-    public List<QcLog> getAll() {
-        return qcLogRepository.findAllOrderByDateDesc();
+    public ResponseEntity<List<?>> getAll(@RequestParam(required = false) List<String> fields) {
+        return select(fields, qcLogRepository::findAllOrderByDateDesc,
+                null, Sort.by(Sort.Direction.DESC, "date"));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<QcLog>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_LIMIT) int limit) {
+        int size = PageCursor.clampLimit(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<QcLog> rows;
+        try {
+            PageCursor after = PageCursor.decode(cursor);
+            if (after == null) {
+                rows = qcLogRepository.findFirstPage(fetch);
+            } else if (after.key() == null) {
+                rows = qcLogRepository.findUndatedPageAfter(after.id(), fetch);
+            } else {
+                rows = qcLogRepository.findPageAfter(after.key(), after.id(), fetch);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, size, q -> new PageCursor(q.getDate(), q.getBatch())));
     }
 
     @GetMapping("/{batch}")
@@ -30,41 +76,93 @@ public class QcController {
     }
 
     @GetMapping("/code/{code}")
-    public List<QcLog> getByCode(@PathVariable String code) {
-        return qcLogRepository.findByCode(code);
+    public ResponseEntity<List<?>> getByCode(@PathVariable String code, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> qcLogRepository.findByCode(code),
+                FieldProjectionQuery.equal("code", code), Sort.unsorted());
     }
 
     @GetMapping("/releasedby/{releasedBy}")
-    public List<QcLog> getByReleasedBy(@PathVariable String releasedBy) {
-        return qcLogRepository.findByReleasedBy(releasedBy);
+    public ResponseEntity<List<?>> getByReleasedBy(@PathVariable String releasedBy, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> qcLogRepository.findByReleasedBy(releasedBy),
+                FieldProjectionQuery.equal("releasedBy", releasedBy), Sort.unsorted());
     }
 
     @GetMapping("/search")
-    public List<QcLog> searchByBatch(@RequestParam String batch) {
-        return qcLogRepository.findByBatchContainingIgnoreCase(batch);
+    public ResponseEntity<List<?>> searchByBatch(@RequestParam String batch, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> qcLogRepository.findByBatchContainingIgnoreCase(batch),
+                FieldProjectionQuery.containsIgnoreCase("batch", batch), Sort.unsorted());
+    }
+
+    @GetMapping("/period/{year}/{month}")
+    public ResponseEntity<List<?>> getByPeriod(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) String plant,
+            @RequestParam(required = false) List<String> fields) {
+        if (plant == null || plant.isBlank()) {
+            return select(fields, () -> qcLogRepository.findByBatchCodeYearAndBatchCodeMonth(year, month),
+                    FieldProjectionQuery.batchPeriod(year, month, null), Sort.unsorted());
+        }
+        String plantCode = plant.toUpperCase();
+        return select(fields, () -> qcLogRepository.findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(plantCode, year, month),
+                FieldProjectionQuery.batchPeriod(year, month, plantCode), Sort.unsorted());
     }
 
     @PostMapping
     public QcLog create(@RequestBody QcLog qcLog) {
-        return qcLogRepository.save(qcLog);
+        QcLog saved = qcLogRepository.save(qcLog);
+        batchSearchIndex.add(BatchSearchIndex.Source.QC, saved.getBatch());
+        tableVersions.bump(TableVersions.Table.QC);
+        return saved;
+    }
+
+    @PutMapping("/bulk")
+    public BulkImportResult bulkUpsert(@RequestBody List<QcLog> qcLogs) {
+        return batchUpsertService.upsertQcLogs(qcLogs);
     }
 
     @PutMapping("/{batch}")
     public ResponseEntity<QcLog> update(@PathVariable String batch, @RequestBody QcLog qcLog) {
-        if (!qcLogRepository.existsById(batch)) {
+        if (qcLogRepository.updateRow(batch, qcLog) == 0) {
             return ResponseEntity.notFound().build();
         }
+        tableVersions.bump(TableVersions.Table.QC);
         qcLog.setBatch(batch);
-        return ResponseEntity.ok(qcLogRepository.save(qcLog));
+        return ResponseEntity.ok(qcLog);
     }
 
     @DeleteMapping("/{batch}")
     public ResponseEntity<Void> delete(@PathVariable String batch) {
-        if (!qcLogRepository.existsById(batch)) {
+        if (qcLogRepository.deleteRow(batch) == 0) {
             return ResponseEntity.notFound().build();
         }
-        qcLogRepository.deleteById(batch);
+        batchSearchIndex.remove(BatchSearchIndex.Source.QC, batch);
+        tableVersions.bump(TableVersions.Table.QC);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<String> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int deleted = qcLogRepository.deleteRows(ids);
+        ids.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.QC, batch));
+        tableVersions.bump(TableVersions.Table.QC);
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+
+    // Full entities unless ?fields= asks for a subset of columns
+    private ResponseEntity<List<?>> select(List<String> fields, Supplier<List<QcLog>> entities,
+                                           FieldProjectionQuery.Filter<QcLog> filter, Sort sort) {
+        if (fields == null || fields.isEmpty()) {
+            return ResponseEntity.ok(entities.get());
+        }
+        try {
+            return ResponseEntity.ok(fieldProjectionQuery.select(QcLog.class, fields, filter, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 }
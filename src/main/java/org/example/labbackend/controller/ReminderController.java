@@ -2,24 +2,45 @@ package org.example.labbackend.controller;
 
 import org.example.labbackend.model.Reminder;
 import org.example.labbackend.repository.ReminderRepository;
+import org.example.labbackend.service.BatchSearchIndex;
+import org.example.labbackend.service.ReminderScheduler;
+import org.example.labbackend.service.TableVersions;
 import org.example.labbackend.service.TelegramBotService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reminders")
 public class ReminderController {
 
+    // Batches named in the Telegram message for a bulk request; the rest are counted
+    private static final int SUMMARY_BATCHES = 10;
+
     private final ReminderRepository reminderRepository;
     private final TelegramBotService telegramBotService;
-
-    public ReminderController(ReminderRepository reminderRepository, TelegramBotService telegramBotService) {
+    private final BatchSearchIndex batchSearchIndex;
+    private final ReminderScheduler reminderScheduler;
+    private final TableVersions tableVersions;
+    private final int maxBulkBatches;
+
+    public ReminderController(ReminderRepository reminderRepository, TelegramBotService telegramBotService,
+                              BatchSearchIndex batchSearchIndex, ReminderScheduler reminderScheduler,
+                              TableVersions tableVersions,
+                              @Value("${reminders.bulk.max-batches:500}") int maxBulkBatches) {
         this.reminderRepository = reminderRepository;
         this.telegramBotService = telegramBotService;
+        this.batchSearchIndex = batchSearchIndex;
+        this.reminderScheduler = reminderScheduler;
+        this.tableVersions = tableVersions;
+        this.maxBulkBatches = maxBulkBatches;
     }
 
     @GetMapping
@@ -60,6 +81,42 @@ public class ReminderController {
         return ResponseEntity.ok(reminderRepository.findByBatch(batch));
     }
 
+    /**
+     * Registers a whole shift's production at once: every interval of every batch
+     * is inserted in one batched statement. A batch listed twice uses its last
+     * day offset.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<Reminder>> createBulkReminders(@RequestBody List<BatchReminderRequest> requests) {
+        if (requests.isEmpty() || requests.size() > maxBulkBatches) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Integer> dayOffsets = new LinkedHashMap<>();
+        for (BatchReminderRequest request : requests) {
+            String batch = request.batch() != null ? request.batch().trim().toUpperCase() : null;
+            if (!TelegramBotService.isBatchId(batch)) {
+                return ResponseEntity.badRequest().build();
+            }
+            dayOffsets.put(batch, request.dayOffset() != null ? request.dayOffset() : 0);
+        }
+
+        List<Reminder> reminders = telegramBotService.addBatchReminders(dayOffsets);
+        telegramBotService.sendMessage(bulkSummary(dayOffsets.keySet()));
+
+        return ResponseEntity.ok(reminders);
+    }
+
+    // Kept well under Telegram's 4096-character message limit however many batches were added
+    private static String bulkSummary(Collection<String> batches) {
+        if (batches.size() == 1) {
+            return "Batch " + batches.iterator().next() + " added!";
+        }
+        String named = String.join(", ", batches.stream().limit(SUMMARY_BATCHES).toList());
+        return batches.size() <= SUMMARY_BATCHES
+                ? batches.size() + " batches added: " + named
+                : batches.size() + " batches added: " + named + " and " + (batches.size() - SUMMARY_BATCHES) + " more";
+    }
+
     @PostMapping("/single")
     public ResponseEntity<Reminder> createSingleReminder(@RequestBody SingleReminderRequest request) {
         String batch = request.batch().toUpperCase();
@@ -85,47 +142,74 @@ public class ReminderController {
                 .createdAt(Instant.now())
                 .build();
 
-        return ResponseEntity.ok(reminderRepository.save(reminder));
+        Reminder saved = reminderRepository.save(reminder);
+        reminderScheduler.schedule(saved);
+        batchSearchIndex.add(BatchSearchIndex.Source.REMINDERS, saved.getBatch());
+        tableVersions.bump(TableVersions.Table.REMINDERS);
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}/notified")
     public ResponseEntity<Reminder> markAsNotified(@PathVariable Long id) {
+        if (reminderRepository.markNotified(id) == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        reminderScheduler.cancel(id);
+        tableVersions.bump(TableVersions.Table.REMINDERS);
         return reminderRepository.findById(id)
-                .map(reminder -> {
-                    reminder.setNotified(true);
-                    return ResponseEntity.ok(reminderRepository.save(reminder));
-                })
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!reminderRepository.existsById(id)) {
+        List<String> deleted = reminderRepository.deleteReturningBatches(List.of(id));
+        if (deleted.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        reminderRepository.deleteById(id);
+        reminderScheduler.cancel(id);
+        removeFromSearch(deleted);
+        tableVersions.bump(TableVersions.Table.REMINDERS);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> deleted = reminderRepository.deleteReturningBatches(ids);
+        reminderScheduler.cancelAll(ids);
+        removeFromSearch(deleted);
+        tableVersions.bump(TableVersions.Table.REMINDERS);
+        return ResponseEntity.ok(Map.of("deleted", deleted.size()));
+    }
+
     @DeleteMapping("/reminder/{reminderId}")
     public ResponseEntity<Void> deleteByReminderId(@PathVariable String reminderId) {
-        if (!reminderRepository.existsByReminderId(reminderId)) {
+        List<String> deleted = reminderRepository.deleteByReminderIdReturningBatches(reminderId);
+        if (deleted.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        reminderRepository.deleteByReminderId(reminderId);
+        removeFromSearch(deleted);
+        tableVersions.bump(TableVersions.Table.REMINDERS);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/cleanup")
     public ResponseEntity<Void> cleanupNotified() {
-        reminderRepository.deleteAllNotified();
+        telegramBotService.cleanupNotifiedReminders();
         return ResponseEntity.noContent().build();
     }
 
+    private void removeFromSearch(List<String> deletedBatches) {
+        deletedBatches.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.REMINDERS, batch));
+    }
+
     @GetMapping("/test-telegram")
     public ResponseEntity<String> testTelegram() {
         try {
-            telegramBotService.sendMessage("Test message from LabBackend!");
+            telegramBotService.sendMessageNow("Test message from LabBackend!");
             return ResponseEntity.ok("Message sent successfully");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Failed: " + e.getMessage());
@@ -1,22 +1,34 @@
 package org.example.labbackend.controller;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.example.labbackend.dto.CursorPage;
+import org.example.labbackend.dto.PageCursor;
 import org.example.labbackend.model.Retain;
 import org.example.labbackend.repository.RetainRepository;
+import org.example.labbackend.service.BatchSearchIndex;
+import org.example.labbackend.service.TableVersions;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/retains")
 public class RetainController {
 
     private final RetainRepository retainRepository;
+    private final BatchSearchIndex batchSearchIndex;
+    private final TableVersions tableVersions;
 
-    public RetainController(RetainRepository retainRepository) {
+    public RetainController(RetainRepository retainRepository, BatchSearchIndex batchSearchIndex,
+                            TableVersions tableVersions) {
         this.retainRepository = retainRepository;
+        this.batchSearchIndex = batchSearchIndex;
+        this.tableVersions = tableVersions;
     }
 
     @GetMapping
@@ -24,6 +36,31 @@ public class RetainController {
         return retainRepository.findAllOrderByDateDesc();
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Retain>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_LIMIT) int limit) {
+        int size = PageCursor.clampLimit(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<Retain> rows;
+        try {
+            PageCursor after = PageCursor.decode(cursor);
+            if (after == null) {
+                rows = retainRepository.findFirstPage(fetch);
+            } else if (after.key() == null) {
+                rows = retainRepository.findUndatedPageAfter(Long.valueOf(after.id()), fetch);
+            } else {
+                rows = retainRepository.findPageAfter(new Date(Long.parseLong(after.key())), Long.valueOf(after.id()), fetch);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Dates are carried as epoch millis so the cursor round-trips the exact stored value
+        return ResponseEntity.ok(CursorPage.of(rows, size, r -> new PageCursor(
+                r.getDate() != null ? String.valueOf(r.getDate().getTime()) : null,
+                r.getId().toString())));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Retain> getById(@PathVariable Long id) {
         return retainRepository.findById(id)
@@ -58,28 +95,61 @@ public class RetainController {
         return retainRepository.findByDateRange(start, end);
     }
 
+    @GetMapping("/period/{year}/{month}")
+    public List<Retain> getByPeriod(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) String plant) {
+        if (plant == null || plant.isBlank()) {
+            return retainRepository.findByBatchCodeYearAndBatchCodeMonth(year, month);
+        }
+        return retainRepository.findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(plant.toUpperCase(), year, month);
+    }
+
     @PostMapping
     public Retain create(@RequestBody Retain retain) {
         retain.setId(null);  // Ensure new entity is created
-        return retainRepository.save(retain);
+        Retain saved = retainRepository.save(retain);
+        batchSearchIndex.add(BatchSearchIndex.Source.RETAINS, saved.getBatch());
+        tableVersions.bump(TableVersions.Table.RETAINS);
+        return saved;
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Retain> update(@PathVariable Long id, @RequestBody Retain retain) {
-        if (!retainRepository.existsById(id)) {
+        Optional<Retain> existing = retainRepository.findById(id);
+        if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        String previousBatch = existing.get().getBatch();
         retain.setId(id);
-        return ResponseEntity.ok(retainRepository.save(retain));
+        Retain saved = retainRepository.save(retain);
+        batchSearchIndex.remove(BatchSearchIndex.Source.RETAINS, previousBatch);
+        batchSearchIndex.add(BatchSearchIndex.Source.RETAINS, saved.getBatch());
+        tableVersions.bump(TableVersions.Table.RETAINS);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!retainRepository.existsById(id)) {
+        List<String> deleted = retainRepository.deleteReturningBatches(List.of(id));
+        if (deleted.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        retainRepository.deleteById(id);
+        deleted.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.RETAINS, batch));
+        tableVersions.bump(TableVersions.Table.RETAINS);
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> deleted = retainRepository.deleteReturningBatches(ids);
+        deleted.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.RETAINS, batch));
+        tableVersions.bump(TableVersions.Table.RETAINS);
+        return ResponseEntity.ok(Map.of("deleted", deleted.size()));
+    }
+
 }
@@ -0,0 +1,28 @@
+package org.example.labbackend.controller;
+
+import org.example.labbackend.service.BatchSearchIndex;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final BatchSearchIndex batchSearchIndex;
+
+    public SearchController(BatchSearchIndex batchSearchIndex) {
+        this.batchSearchIndex = batchSearchIndex;
+    }
+
+    @GetMapping("/batches")
+    public Map<String, List<String>> searchBatches(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return batchSearchIndex.search(q, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+}
@@ -1,27 +1,90 @@
 package org.example.labbackend.controller;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.CursorPage;
+import org.example.labbackend.dto.PageCursor;
+import org.example.labbackend.dto.SpcReport;
+import org.example.labbackend.model.Measurement;
 import org.example.labbackend.model.TestingData;
+import org.example.labbackend.repository.FieldProjectionQuery;
 import org.example.labbackend.repository.TestingDataRepository;
-
+import org.example.labbackend.repository.TestingMeasurementRepository;
+import org.example.labbackend.service.BatchSearchIndex;
+import org.example.labbackend.service.SpcService;
+import org.example.labbackend.service.TestingDataImportService;
+import org.example.labbackend.service.TestingMeasurementService;
+
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/testing")
 public class TestingDataController {
 
     private final TestingDataRepository testingDataRepository;
-
-    public TestingDataController(TestingDataRepository testingDataRepository) {
+    private final BatchSearchIndex batchSearchIndex;
+    private final TestingDataImportService testingDataImportService;
+    private final TestingMeasurementService testingMeasurementService;
+    private final TestingMeasurementRepository testingMeasurementRepository;
+    private final SpcService spcService;
+    private final FieldProjectionQuery fieldProjectionQuery;
+
+    public TestingDataController(TestingDataRepository testingDataRepository,
+                                 BatchSearchIndex batchSearchIndex,
+                                 TestingDataImportService testingDataImportService,
+                                 TestingMeasurementService testingMeasurementService,
+                                 TestingMeasurementRepository testingMeasurementRepository,
+                                 SpcService spcService,
+                                 FieldProjectionQuery fieldProjectionQuery) {
         this.testingDataRepository = testingDataRepository;
+        this.batchSearchIndex = batchSearchIndex;
+        this.testingDataImportService = testingDataImportService;
+        this.testingMeasurementService = testingMeasurementService;
+        this.testingMeasurementRepository = testingMeasurementRepository;
+        this.spcService = spcService;
+        this.fieldProjectionQuery = fieldProjectionQuery;
     }
 
     @GetMapping
-    public List<TestingData> getAll() {
-        return testingDataRepository.findAllOrderByDateDesc();
+    public ResponseEntity<List<?>> getAll(@RequestParam(required = false) List<String> fields) {
+        return select(fields, testingDataRepository::findAllOrderByDateDesc,
+                null, Sort.by(Sort.Direction.DESC, "date"));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<TestingData>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_LIMIT) int limit) {
+        int size = PageCursor.clampLimit(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<TestingData> rows;
+        try {
+            PageCursor after = PageCursor.decode(cursor);
+            if (after == null) {
+                rows = testingDataRepository.findFirstPage(fetch);
+            } else if (after.key() == null) {
+                rows = testingDataRepository.findUndatedPageAfter(Long.valueOf(after.id()), fetch);
+            } else {
+                rows = testingDataRepository.findPageAfter(LocalDate.parse(after.key()), Long.valueOf(after.id()), fetch);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, size, t -> new PageCursor(
+                t.getDate() != null ? t.getDate().toString() : null,
+                t.getId().toString())));
     }
 
     @GetMapping("/{id}")
@@ -32,54 +95,159 @@ public class TestingDataController {
     }
 
     @GetMapping("/batch/{batch}")
-    public List<TestingData> getByBatch(@PathVariable String batch) {
-        return testingDataRepository.findByBatch(batch);
+    public ResponseEntity<List<?>> getByBatch(@PathVariable String batch, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> testingDataRepository.findByBatch(batch),
+                FieldProjectionQuery.equal("batch", batch), Sort.unsorted());
     }
 
     @GetMapping("/code/{code}")
-    public List<TestingData> getByCode(@PathVariable String code) {
-        return testingDataRepository.findByCode(code);
+    public ResponseEntity<List<?>> getByCode(@PathVariable String code, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> testingDataRepository.findByCode(code),
+                FieldProjectionQuery.equal("code", code), Sort.unsorted());
     }
 
     @GetMapping("/search")
-    public List<TestingData> searchByBatch(@RequestParam String batch) {
-        return testingDataRepository.findByBatchContainingIgnoreCase(batch);
+    public ResponseEntity<List<?>> searchByBatch(@RequestParam String batch, @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> testingDataRepository.findByBatchContainingIgnoreCase(batch),
+                FieldProjectionQuery.containsIgnoreCase("batch", batch), Sort.unsorted());
     }
 
     @GetMapping("/date/{date}")
-    public List<TestingData> getByDate(
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return testingDataRepository.findByDate(date);
+    public ResponseEntity<List<?>> getByDate(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> testingDataRepository.findByDate(date),
+                FieldProjectionQuery.equal("date", date), Sort.unsorted());
     }
 
     @GetMapping("/daterange")
-    public List<TestingData> getByDateRange(
+    public ResponseEntity<List<?>> getByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
-        return testingDataRepository.findByDateRange(start, end);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) List<String> fields) {
+        return select(fields, () -> testingDataRepository.findByDateRange(start, end),
+                (cb, t) -> cb.between(t.get("date"), start, end), Sort.by(Sort.Direction.DESC, "date"));
+    }
+
+    @GetMapping("/period/{year}/{month}")
+    public ResponseEntity<List<?>> getByPeriod(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) String plant,
+            @RequestParam(required = false) List<String> fields) {
+        if (plant == null || plant.isBlank()) {
+            return select(fields, () -> testingDataRepository.findByBatchCodeYearAndBatchCodeMonth(year, month),
+                    FieldProjectionQuery.batchPeriod(year, month, null), Sort.unsorted());
+        }
+        String plantCode = plant.toUpperCase();
+        return select(fields, () -> testingDataRepository.findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(plantCode, year, month),
+                FieldProjectionQuery.batchPeriod(year, month, plantCode), Sort.unsorted());
+    }
+
+    @GetMapping("/measurements/{measurement}")
+    public ResponseEntity<List<TestingData>> getByMeasurement(
+            @PathVariable String measurement,
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Double min,
+            @RequestParam(required = false) Double max,
+            @RequestParam(required = false) String unit) {
+        Measurement field = Measurement.ofProperty(measurement);
+        if (field == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(testingMeasurementRepository.findByMeasurementRange(field, code, unit, start, end, min, max));
+    }
+
+    @GetMapping("/spc/{code}")
+    public ResponseEntity<SpcReport> getControlCharts(
+            @PathVariable String code,
+            @RequestParam(defaultValue = "pen60x") String measurement,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "5") int subgroupSize,
+            @RequestParam(defaultValue = "25") int baseline,
+            @RequestParam(required = false) String unit) {
+        Measurement field = Measurement.ofProperty(measurement);
+        if (field == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(spcService.analyze(field, code, unit, start, end, subgroupSize, baseline));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
     public TestingData create(@RequestBody TestingData testingData) {
-        return testingDataRepository.save(testingData);
+        TestingData saved = testingMeasurementService.save(testingData);
+        batchSearchIndex.add(BatchSearchIndex.Source.TESTING, saved.getBatch());
+        return saved;
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResult bulkImport(@RequestBody List<TestingData> rows) {
+        return testingDataImportService.importRows(rows);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResult> bulkImportCsv(Reader body) throws IOException {
+        try {
+            return ResponseEntity.ok(testingDataImportService.importCsv(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<TestingData> update(@PathVariable Long id, @RequestBody TestingData testingData) {
-        if (!testingDataRepository.existsById(id)) {
+        Optional<TestingData> existing = testingDataRepository.findById(id);
+        if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        String previousBatch = existing.get().getBatch();
         testingData.setId(id);
-        return ResponseEntity.ok(testingDataRepository.save(testingData));
+        TestingData saved = testingMeasurementService.save(testingData);
+        batchSearchIndex.remove(BatchSearchIndex.Source.TESTING, previousBatch);
+        batchSearchIndex.add(BatchSearchIndex.Source.TESTING, saved.getBatch());
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!testingDataRepository.existsById(id)) {
+        List<String> deleted = testingDataRepository.deleteReturningBatches(List.of(id));
+        if (deleted.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        testingDataRepository.deleteById(id);
+        testingMeasurementService.delete(List.of(id));
+        deleted.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.TESTING, batch));
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> deleteAll(@RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> deleted = testingDataRepository.deleteReturningBatches(ids);
+        testingMeasurementService.delete(ids);
+        deleted.forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.TESTING, batch));
+        return ResponseEntity.ok(Map.of("deleted", deleted.size()));
+    }
+
+    // Full entities unless ?fields= asks for a subset of columns
+    private ResponseEntity<List<?>> select(List<String> fields, Supplier<List<TestingData>> entities,
+                                           FieldProjectionQuery.Filter<TestingData> filter, Sort sort) {
+        if (fields == null || fields.isEmpty()) {
+            return ResponseEntity.ok(entities.get());
+        }
+        try {
+            return ResponseEntity.ok(fieldProjectionQuery.select(TestingData.class, fields, filter, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 }
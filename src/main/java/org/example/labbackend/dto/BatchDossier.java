@@ -0,0 +1,30 @@
+package org.example.labbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.model.QcLog;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.model.Retain;
+import org.example.labbackend.model.TestingData;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDossier {
+    private String batch;
+    private MonthlyBatch production;
+    private ProductName product;
+    private QcLog qc;
+    private List<TestingData> testing;
+    private List<Retain> retains;
+    private List<Reminder> reminders;
+    // Sources that failed or timed out; their fields are null or empty
+    private List<String> unavailable;
+}
@@ -0,0 +1,22 @@
+package org.example.labbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private int received;
+    private int inserted;
+    private int failed;
+    // Capped; failed still counts every rejected row
+    private List<RowError> errors;
+
+    public record RowError(int row, String message) {}
+}
@@ -0,0 +1,42 @@
+package org.example.labbackend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for paginated list endpoints: the sort key and the
+ * id of the last row on the previous page. A null key marks rows whose sort
+ * column is NULL (they sort last in descending order on MySQL).
+ */
+public record PageCursor(String key, String id) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    public String encode() {
+        String raw = (key == null ? "" : "v" + key) + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}. Returns null for a missing
+     * cursor (first page) and throws IllegalArgumentException for a malformed one.
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int split = raw.lastIndexOf('\n');
+        if (split < 0 || split == raw.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String keyPart = raw.substring(0, split);
+        String key = keyPart.isEmpty() ? null : keyPart.substring(1);
+        return new PageCursor(key, raw.substring(split + 1));
+    }
+
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.labbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcReport {
+    private String code;
+    private String measurement;
+    // Unit of every charted value, null for values recorded without one
+    private String unit;
+    // Values of the same measurement in other units, which are left out of the charts
+    private List<UnitCount> otherUnits;
+    private LocalDate start;
+    private LocalDate end;
+    // Over every point in the window, not just the baseline
+    private Summary summary;
+    private IndividualsChart individuals;
+    // Null when there are fewer points than one subgroup
+    private XBarRChart xbarR;
+
+    public record UnitCount(String unit, long count) {}
+
+    public record Summary(long count, Double mean, Double stdDev, Double min, Double max) {}
+
+    public record Limits(double center, double lower, double upper) {}
+
+    public record Point(Long testingId, LocalDate date, double value, Double movingRange) {}
+
+    public record Subgroup(int index, LocalDate firstDate, LocalDate lastDate, double mean, double range) {}
+
+    /**
+     * A Western Electric rule (1-4) broken at {@code index}: the point index on the
+     * individuals chart, the subgroup index on the X-bar chart.
+     */
+    public record Violation(int index, LocalDate date, int rule, String description) {}
+
+    public record IndividualsChart(int baselinePoints, Limits values, Limits movingRange,
+                                   List<Point> points, List<Violation> violations) {}
+
+    public record XBarRChart(int subgroupSize, int baselineSubgroups, Limits means, Limits ranges,
+                             List<Subgroup> subgroups, List<Violation> violations) {}
+}
@@ -0,0 +1,97 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Components of a batch identifier, parsed once on write so that queries by
+ * plant, production month or year can use an index instead of string functions.
+ * See the batch naming convention: [PREFIX][MONTH][YEAR][SEQ][SUFFIX].
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCode {
+
+    private static final Pattern PATTERN = Pattern.compile("^([A-Z])([A-L])(\\d)(\\d{1,6})([A-Z]{0,8})$");
+
+    /**
+     * batch_year of a row whose batch does not follow the naming convention, with
+     * the other parsed columns NULL. Marks the row as already tried, so the
+     * backfill does not read it again on every startup; no period query asks for
+     * year 0.
+     */
+    public static final int UNPARSEABLE_YEAR = 0;
+
+    @Column(name = "batch_plant", length = 8)
+    private String plant;
+
+    @Column(name = "batch_year")
+    private Integer year;
+
+    @Column(name = "batch_month")
+    private Integer month;
+
+    @Column(name = "batch_seq")
+    private Integer sequence;
+
+    @Column(name = "batch_suffix", length = 8)
+    private String suffix;
+
+    /**
+     * Parses a batch identifier such as {@code NA6102} or {@code NL5003Y}.
+     * Returns null when the identifier does not follow the naming convention.
+     */
+    public static BatchCode parse(String batch) {
+        if (batch == null) {
+            return null;
+        }
+        Matcher matcher = PATTERN.matcher(batch.trim().toUpperCase());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new BatchCode(
+                matcher.group(1),
+                2020 + Integer.parseInt(matcher.group(3)),
+                matcher.group(2).charAt(0) - 'A' + 1,
+                Integer.parseInt(matcher.group(4)),
+                matcher.group(5).isEmpty() ? null : matcher.group(5));
+    }
+
+    /**
+     * What to store for {@code batch}: its parsed parts, the
+     * {@link #UNPARSEABLE_YEAR} marker when it does not parse, or null when there
+     * is no batch.
+     */
+    public static BatchCode of(String batch) {
+        if (batch == null) {
+            return null;
+        }
+        BatchCode code = parse(batch);
+        return code != null ? code : new BatchCode(null, UNPARSEABLE_YEAR, null, null, null);
+    }
+
+    /**
+     * Binds batch_plant, batch_year, batch_month, batch_seq and batch_suffix, in
+     * that order from {@code firstIndex}, for a JDBC insert of {@code batch}, as
+     * {@link #of} decides. {@link BatchCodeListener} fills these on the
+     * JPA path; JDBC bypasses it.
+     */
+    public static void bind(PreparedStatement ps, int firstIndex, String batch) throws SQLException {
+        BatchCode code = of(batch);
+        ps.setObject(firstIndex, code != null ? code.plant : null);
+        ps.setObject(firstIndex + 1, code != null ? code.year : null);
+        ps.setObject(firstIndex + 2, code != null ? code.month : null);
+        ps.setObject(firstIndex + 3, code != null ? code.sequence : null);
+        ps.setObject(firstIndex + 4, code != null ? code.suffix : null);
+    }
+
+}
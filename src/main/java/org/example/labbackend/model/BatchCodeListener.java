@@ -0,0 +1,18 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Keeps the parsed batch columns in step with the batch identifier on every
+ * JPA insert and update.
+ */
+public class BatchCodeListener {
+
+    @PrePersist
+    @PreUpdate
+    public void parseBatchCode(BatchCoded entity) {
+        entity.setBatchCode(BatchCode.of(entity.getBatch()));
+    }
+
+}
@@ -0,0 +1,12 @@
+package org.example.labbackend.model;
+
+/**
+ * An entity that stores a batch identifier alongside its parsed {@link BatchCode}.
+ */
+public interface BatchCoded {
+
+    String getBatch();
+
+    void setBatchCode(BatchCode batchCode);
+
+}
@@ -0,0 +1,27 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One-off data conversion that has already run, so startup can skip it without
+ * scanning the tables it converted.
+ */
+@Entity
+@Table(name = "data_migrations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataMigration {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "applied_at")
+    private Instant appliedAt;
+
+}
@@ -0,0 +1,82 @@
+package org.example.labbackend.model;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The free-text measurement columns of {@link TestingData}, with the JSON
+ * property name and SQL column of each. Used wherever code has to walk all
+ * measurements without naming each field (JDBC bulk import, CSV mapping,
+ * parsed numeric values).
+ */
+public enum Measurement {
+
+    PEN_0X("pen0x", "pen_0x", TestingData::getPen0x, TestingData::setPen0x),
+    PEN_60X("pen60x", "pen_60x", TestingData::getPen60x, TestingData::setPen60x),
+    PEN_10K("pen10k", "pen_10k", TestingData::getPen10k, TestingData::setPen10k),
+    PEN_100K("pen100k", "pen_100k", TestingData::getPen100k, TestingData::setPen100k),
+    DROP_POINT("dropPoint", "drop_point", TestingData::getDropPoint, TestingData::setDropPoint),
+    WELD("weld", "weld", TestingData::getWeld, TestingData::setWeld),
+    TIMKEN("timken", "timken", TestingData::getTimken, TestingData::setTimken),
+    RUST("rust", "rust", TestingData::getRust, TestingData::setRust),
+    COPPER_CORROSION("copperCorrosion", "copper_corrosion", TestingData::getCopperCorrosion, TestingData::setCopperCorrosion),
+    OXIDATION("oxidation", "oxidation", TestingData::getOxidation, TestingData::setOxidation),
+    OIL_BLEED("oilBleed", "oil_bleed", TestingData::getOilBleed, TestingData::setOilBleed),
+    SPRAY_OFF("sprayOff", "spray_off", TestingData::getSprayOff, TestingData::setSprayOff),
+    WASHOUT("washout", "washout", TestingData::getWashout, TestingData::setWashout),
+    PRESSURE_BLEED("pressureBleed", "pressure_bleed", TestingData::getPressureBleed, TestingData::setPressureBleed),
+    ROLL_STABILITY_DRY("rollStabilityDry", "roll_stability_dry", TestingData::getRollStabilityDry, TestingData::setRollStabilityDry),
+    ROLL_STABILITY_WET("rollStabilityWet", "roll_stability_wet", TestingData::getRollStabilityWet, TestingData::setRollStabilityWet),
+    WEAR("wear", "wear", TestingData::getWear, TestingData::setWear),
+    FT_IR("ftIr", "ft_ir", TestingData::getFtIr, TestingData::setFtIr),
+    MINITEST_MINUS_40("minitestMinus40", "minitest_minus_40", TestingData::getMinitestMinus40, TestingData::setMinitestMinus40),
+    MINITEST_MINUS_30("minitestMinus30", "minitest_minus_30", TestingData::getMinitestMinus30, TestingData::setMinitestMinus30),
+    MINITEST_MINUS_20("minitestMinus20", "minitest_minus_20", TestingData::getMinitestMinus20, TestingData::setMinitestMinus20),
+    MINITEST_0("minitest0", "minitest_0", TestingData::getMinitest0, TestingData::setMinitest0),
+    MINITEST_20("minitest20", "minitest_20", TestingData::getMinitest20, TestingData::setMinitest20),
+    RHEOMETER("rheometer", "rheometer", TestingData::getRheometer, TestingData::setRheometer),
+    RHEOMETER_TEMP("rheometerTemp", "rheometer_temp", TestingData::getRheometerTemp, TestingData::setRheometerTemp);
+
+    private final String property;
+    private final String column;
+    private final Function<TestingData, String> getter;
+    private final BiConsumer<TestingData, String> setter;
+
+    Measurement(String property, String column,
+                Function<TestingData, String> getter, BiConsumer<TestingData, String> setter) {
+        this.property = property;
+        this.column = column;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Looks up a measurement by its JSON property name, e.g. {@code dropPoint}.
+     * Returns null when no measurement has that name.
+     */
+    public static Measurement ofProperty(String property) {
+        for (Measurement measurement : values()) {
+            if (measurement.property.equals(property)) {
+                return measurement;
+            }
+        }
+        return null;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public String get(TestingData row) {
+        return getter.apply(row);
+    }
+
+    public void set(TestingData row, String value) {
+        setter.accept(row, value);
+    }
+
+}
@@ -1,16 +1,27 @@
 package org.example.labbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.labbackend.config.HibernateCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "monthly_batches")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.BATCHES_REGION)
+@Table(name = "monthly_batches", indexes = {
+        @Index(name = "idx_monthly_batches_date_start_batch", columnList = "date_start, batch"),
+        @Index(name = "idx_monthly_batches_batch_period", columnList = "batch_year, batch_month"),
+        @Index(name = "idx_monthly_batches_batch_plant_period", columnList = "batch_plant, batch_year, batch_month")
+})
+@EntityListeners(BatchCodeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class MonthlyBatch {
+public class MonthlyBatch implements BatchCoded {
 
     @Id
     @Column(name = "batch")
@@ -34,4 +45,8 @@ public class MonthlyBatch {
     @Column(name = "type")
     private String type;
 
+    @Embedded
+    @JsonIgnore
+    private BatchCode batchCode;
+
 }
@@ -0,0 +1,50 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "monthly_stats")
+@IdClass(MonthlyStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStats {
+
+    @Id
+    @Column(name = "stat_year")
+    private Integer year;
+
+    @Id
+    @Column(name = "stat_month")
+    private Integer month;
+
+    @Column(name = "batch_count")
+    private Long batchCount;
+
+    @Column(name = "batches_released")
+    private Long batchesReleased;
+
+    @Column(name = "total_pounds")
+    private Long totalPounds;
+
+    @Column(name = "rework_batches")
+    private Long reworkBatches;
+
+    @Column(name = "rework_pounds")
+    private Long reworkPounds;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer year;
+        private Integer month;
+    }
+
+}
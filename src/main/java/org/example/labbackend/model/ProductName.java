@@ -2,8 +2,13 @@ package org.example.labbackend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.labbackend.config.HibernateCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PRODUCTS_REGION)
 @Table(name = "names")
 @Getter
 @Setter
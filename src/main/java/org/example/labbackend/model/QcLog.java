@@ -1,14 +1,25 @@
 package org.example.labbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.labbackend.config.HibernateCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "qc")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.QC_REGION)
+@Table(name = "qc", indexes = {
+        @Index(name = "idx_qc_date_batch", columnList = "date, batch"),
+        @Index(name = "idx_qc_batch_period", columnList = "batch_year, batch_month"),
+        @Index(name = "idx_qc_batch_plant_period", columnList = "batch_plant, batch_year, batch_month")
+})
+@EntityListeners(BatchCodeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
-public class QcLog {
+public class QcLog implements BatchCoded {
 
     @Id
     @Column(name = "batch")
@@ -32,4 +43,8 @@ public class QcLog {
     @Column(name = "released_by")
     private String releasedBy;
 
+    @Embedded
+    @JsonIgnore
+    private BatchCode batchCode;
+
 }
@@ -1,17 +1,22 @@
 package org.example.labbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "reminders")
+@Table(name = "reminders", indexes = {
+        @Index(name = "idx_reminders_batch_period", columnList = "batch_year, batch_month"),
+        @Index(name = "idx_reminders_batch_plant_period", columnList = "batch_plant, batch_year, batch_month")
+})
+@EntityListeners(BatchCodeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Reminder {
+public class Reminder implements BatchCoded {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,4 +40,8 @@ public class Reminder {
     @Column(name = "created_at")
     private Instant createdAt;
 
+    @Embedded
+    @JsonIgnore
+    private BatchCode batchCode;
+
 }
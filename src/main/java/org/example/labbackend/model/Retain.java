@@ -1,15 +1,21 @@
 package org.example.labbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "retains")
+@Table(name = "retains", indexes = {
+        @Index(name = "idx_retains_date_id", columnList = "date, id"),
+        @Index(name = "idx_retains_batch_period", columnList = "batch_year, batch_month"),
+        @Index(name = "idx_retains_batch_plant_period", columnList = "batch_plant, batch_year, batch_month")
+})
+@EntityListeners(BatchCodeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
-public class Retain {
+public class Retain implements BatchCoded {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,4 +33,8 @@ public class Retain {
     @Column(name = "box")
     private Long box;
 
+    @Embedded
+    @JsonIgnore
+    private BatchCode batchCode;
+
 }
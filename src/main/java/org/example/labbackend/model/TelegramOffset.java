@@ -0,0 +1,31 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Last Telegram update processed by a bot, so a restart resumes polling right
+ * after it instead of replaying or skipping updates. Keyed by the bot's numeric
+ * id (the part of the token before the colon), never the token itself.
+ */
+@Entity
+@Table(name = "telegram_offsets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelegramOffset {
+
+    @Id
+    @Column(name = "bot_id")
+    private String botId;
+
+    @Column(name = "last_update_id")
+    private Long lastUpdateId;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+}
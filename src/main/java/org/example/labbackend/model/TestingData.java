@@ -1,16 +1,22 @@
 package org.example.labbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "testing_data")
+@Table(name = "testing_data", indexes = {
+        @Index(name = "idx_testing_data_date_id", columnList = "date, id"),
+        @Index(name = "idx_testing_data_batch_period", columnList = "batch_year, batch_month"),
+        @Index(name = "idx_testing_data_batch_plant_period", columnList = "batch_plant, batch_year, batch_month")
+})
+@EntityListeners(BatchCodeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class TestingData {
+public class TestingData implements BatchCoded {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -101,4 +107,8 @@ public class TestingData {
     @Column(name = "rheometer_temp")
     private String rheometerTemp;
 
+    @Embedded
+    @JsonIgnore
+    private BatchCode batchCode;
+
 }
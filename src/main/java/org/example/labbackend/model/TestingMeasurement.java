@@ -0,0 +1,163 @@
+package org.example.labbackend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typed reading of one measurement of one testing_data row. The raw strings stay
+ * on testing_data; this table holds what could be parsed out of them, with the
+ * product code and test date copied in so range queries such as "drop point
+ * below 500 for code 450 this year" are answered from one index.
+ *
+ * Values are stored in one unit per quantity ({@link #CONVERSIONS}), so readings
+ * entered in °C and °F, or mg and g, can be compared and charted together.
+ */
+@Entity
+@Table(name = "testing_measurements", indexes = {
+        @Index(name = "idx_testing_measurements_code_date", columnList = "measurement, code, test_date"),
+        @Index(name = "idx_testing_measurements_value", columnList = "measurement, num_value"),
+        // The key is ordered (measurement, testing_id), which does not help the per-row DELETE and backfill
+        @Index(name = "idx_testing_measurements_testing_id", columnList = "testing_id")
+})
+@IdClass(TestingMeasurement.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestingMeasurement {
+
+    // [qualifier] number [range end] [unit], e.g. "510", "510 °F", "<0.5", "280-290 dmm"
+    private static final Pattern NUMERIC = Pattern.compile(
+            "^(<=|>=|<|>|~|≤|≥)?\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*(?:(?:-|–|to)\\s*([-+]?\\d+(?:\\.\\d+)?))?\\s*([°º]?\\s*[A-Za-z%/µ]+)?$");
+
+    private static final Map<String, String> UNITS = Map.ofEntries(
+            Map.entry("f", "°F"), Map.entry("°f", "°F"), Map.entry("degf", "°F"),
+            Map.entry("c", "°C"), Map.entry("°c", "°C"), Map.entry("degc", "°C"),
+            Map.entry("dmm", "dmm"), Map.entry("mm", "mm"), Map.entry("%", "%"),
+            Map.entry("g", "g"), Map.entry("mg", "mg"), Map.entry("kg", "kg"), Map.entry("kgf", "kgf"),
+            Map.entry("lb", "lb"), Map.entry("lbs", "lb"), Map.entry("n", "N"),
+            Map.entry("cp", "cP"), Map.entry("pa", "Pa"),
+            Map.entry("s", "s"), Map.entry("sec", "s"), Map.entry("min", "min"),
+            Map.entry("h", "h"), Map.entry("hr", "h"), Map.entry("hrs", "h"));
+
+    /**
+     * Units converted on parse to the one stored for their quantity, as
+     * {@code stored = value * factor + offset}.
+     */
+    public static final Map<String, Conversion> CONVERSIONS = Map.of(
+            "°C", new Conversion("°F", 1.8, 32),
+            "mg", new Conversion("g", 0.001, 0),
+            "kg", new Conversion("g", 1000, 0),
+            "kgf", new Conversion("N", 9.80665, 0));
+
+    @Id
+    @Column(name = "testing_id")
+    private Long testingId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "measurement", length = 32)
+    private Measurement measurement;
+
+    @Column(name = "code")
+    private String code;
+
+    @Column(name = "test_date")
+    private LocalDate testDate;
+
+    @Column(name = "num_value")
+    private Double numericValue;
+
+    @Column(name = "unit", length = 16)
+    private String unit;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private Status status;
+
+    /**
+     * Parses one measurement of {@code row}. Returns null when the raw value is
+     * empty, so only recorded measurements get a row.
+     */
+    public static TestingMeasurement of(TestingData row, Measurement measurement) {
+        String raw = measurement.get(row);
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        TestingMeasurement parsed = new TestingMeasurement(
+                row.getId(), measurement, row.getCode(), row.getDate(), null, null, Status.TEXT);
+        String text = raw.trim();
+
+        switch (text.toLowerCase(Locale.ROOT)) {
+            case "pass", "passed", "ok", "p" -> {
+                parsed.setStatus(Status.PASS);
+                return parsed;
+            }
+            case "fail", "failed", "f" -> {
+                parsed.setStatus(Status.FAIL);
+                return parsed;
+            }
+            default -> { }
+        }
+
+        Matcher matcher = NUMERIC.matcher(text);
+        if (!matcher.matches()) {
+            return parsed;
+        }
+        String unit = null;
+        if (matcher.group(4) != null) {
+            unit = UNITS.get(matcher.group(4).replace(" ", "").replace('º', '°').toLowerCase(Locale.ROOT));
+            if (unit == null) {
+                // A number followed by something that is not a unit, e.g. a corrosion class "1a"
+                return parsed;
+            }
+        }
+        double value = Double.parseDouble(matcher.group(2));
+        boolean approximate = matcher.group(1) != null;
+        if (matcher.group(3) != null) {
+            // Ranges are stored as their midpoint
+            value = (value + Double.parseDouble(matcher.group(3))) / 2;
+            approximate = true;
+        }
+        Conversion conversion = unit != null ? CONVERSIONS.get(unit) : null;
+        if (conversion != null) {
+            value = value * conversion.factor() + conversion.offset();
+            unit = conversion.unit();
+        }
+        parsed.setNumericValue(value);
+        parsed.setUnit(unit);
+        parsed.setStatus(approximate ? Status.APPROXIMATE : Status.NUMERIC);
+        return parsed;
+    }
+
+    public record Conversion(String unit, double factor, double offset) {}
+
+    public enum Status {
+        // Plain number, optionally with a unit
+        NUMERIC,
+        // Bound ("<0.5") or range midpoint ("280-290")
+        APPROXIMATE,
+        PASS,
+        FAIL,
+        // Recorded but not numeric; only the raw string is meaningful
+        TEXT
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long testingId;
+        private Measurement measurement;
+    }
+
+}
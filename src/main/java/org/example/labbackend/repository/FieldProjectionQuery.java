@@ -0,0 +1,141 @@
+package org.example.labbackend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets for the list endpoints ({@code ?fields=batch,code,date}).
+ * Builds a Criteria tuple query that selects only the requested columns, so both
+ * the SELECT list and the JSON rows shrink to what the client asked for. Field
+ * names are the JSON property names, which match the entity attributes.
+ */
+@Repository
+public class FieldProjectionQuery {
+
+    private final EntityManager entityManager;
+
+    public FieldProjectionQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Rows of {@code entityClass} matching {@code filter}, each as a map of the
+     * requested fields in the order given. The identifier is always included so
+     * rows can still be linked to their detail endpoint.
+     *
+     * @throws IllegalArgumentException if a field is not a column of the entity
+     */
+    public <T> List<Map<String, Object>> select(Class<T> entityClass, Collection<String> fields,
+                                                Filter<T> filter, Sort sort) {
+        List<String> selected = resolve(entityClass, fields);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        List<Selection<?>> columns = new ArrayList<>(selected.size());
+        for (String field : selected) {
+            columns.add(root.get(field).alias(field));
+        }
+        query.multiselect(columns);
+        if (filter != null) {
+            query.where(filter.toPredicate(cb, root));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Path<Object> path = root.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        query.orderBy(orders);
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : selected) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * {@code attribute} contains {@code text}, ignoring case, with LIKE wildcards
+     * in the text matched literally (as the derived ContainingIgnoreCase queries do).
+     */
+    public static <T> Filter<T> containsIgnoreCase(String attribute, String text) {
+        String pattern = "%" + text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (cb, root) -> cb.like(cb.lower(root.get(attribute)), pattern, '\\');
+    }
+
+    public static <T> Filter<T> equal(String attribute, Object value) {
+        return (cb, root) -> cb.equal(root.get(attribute), value);
+    }
+
+    /**
+     * Rows whose parsed batch code falls in {@code year}/{@code month}, optionally
+     * for one plant.
+     */
+    public static <T> Filter<T> batchPeriod(Integer year, Integer month, String plant) {
+        return (cb, root) -> {
+            Path<Object> batchCode = root.get("batchCode");
+            Predicate period = cb.and(cb.equal(batchCode.get("year"), year), cb.equal(batchCode.get("month"), month));
+            return plant == null ? period : cb.and(period, cb.equal(batchCode.get("plant"), plant));
+        };
+    }
+
+    private List<String> resolve(Class<?> entityClass, Collection<String> fields) {
+        EntityType<?> type = entityManager.getMetamodel().entity(entityClass);
+        Set<String> selected = new LinkedHashSet<>();
+        for (SingularAttribute<?, ?> attribute : type.getSingularAttributes()) {
+            if (attribute.isId()) {
+                selected.add(attribute.getName());
+            }
+        }
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Attribute<?, ?> attribute;
+            try {
+                attribute = type.getAttribute(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            // Embedded values such as the parsed batch code are not part of the JSON
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return new ArrayList<>(selected);
+    }
+
+    @FunctionalInterface
+    public interface Filter<T> {
+        Predicate toPredicate(CriteriaBuilder cb, Root<T> root);
+    }
+}
@@ -1,59 +1,73 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.MonthlyBatch;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MonthlyBatchRepository extends JpaRepository<MonthlyBatch, String> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<MonthlyBatch> findByCode(Integer code);
 
     List<MonthlyBatch> findByType(String type);
 
     List<MonthlyBatch> findByReleased(String released);
 
+    List<MonthlyBatch> findByBatchCodeYearAndBatchCodeMonth(Integer year, Integer month);
+
+    List<MonthlyBatch> findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(String plant, Integer year, Integer month);
+
     @Query("SELECT m FROM MonthlyBatch m WHERE m.dateStart >= :start AND m.dateStart <= :end")
     List<MonthlyBatch> findByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     @Query("SELECT m FROM MonthlyBatch m ORDER BY m.dateStart DESC")
     List<MonthlyBatch> findAllOrderByDateDesc();
 
-    @Query(value = """
-        SELECT
-            2020 + year_digit AS year,
-            month_num AS month,
-            MONTHNAME(DATE_ADD(MAKEDATE(2000, 1), INTERVAL month_num - 1 MONTH)) AS monthName,
-            COUNT(CASE WHEN released = 'Yes' THEN 1 END) AS batchesReleased,
-            COALESCE(SUM(CASE WHEN released = 'Yes' THEN lbs ELSE 0 END), 0) AS totalPounds,
-            COUNT(CASE WHEN released = 'No' THEN 1 END) AS reworkBatches,
-            COALESCE(SUM(CASE WHEN released = 'No' THEN lbs ELSE 0 END), 0) AS reworkPounds
-        FROM (
-            SELECT
-                ASCII(SUBSTRING(batch, 2, 1)) - 64 AS month_num,
-                CAST(SUBSTRING(batch, 3, 1) AS UNSIGNED) AS year_digit,
-                released,
-                lbs
-            FROM monthly_batches
-            WHERE SUBSTRING(batch, 2, 1) BETWEEN 'A' AND 'L'
-        ) t
-        WHERE 2020 + year_digit = :year
-        GROUP BY year_digit, month_num
-        ORDER BY month_num
-        """, nativeQuery = true)
-    List<Object[]> getMonthlyStatsByYear(@Param("year") int year);
-
-    @Query(value = """
-        SELECT DISTINCT 2020 + CAST(SUBSTRING(batch, 3, 1) AS UNSIGNED) AS year
-        FROM monthly_batches
-        WHERE SUBSTRING(batch, 2, 1) BETWEEN 'A' AND 'L'
-        ORDER BY year DESC
-        """, nativeQuery = true)
-    List<Integer> getAvailableYears();
+    @Query("SELECT m FROM MonthlyBatch m ORDER BY m.dateStart DESC, m.batch DESC")
+    List<MonthlyBatch> findFirstPage(Limit limit);
+
+    @Query("""
+        SELECT m FROM MonthlyBatch m
+        WHERE m.dateStart < :dateStart OR (m.dateStart = :dateStart AND m.batch < :batch) OR m.dateStart IS NULL
+        ORDER BY m.dateStart DESC, m.batch DESC
+        """)
+    List<MonthlyBatch> findPageAfter(@Param("dateStart") LocalDateTime dateStart, @Param("batch") String batch, Limit limit);
+
+    @Query("SELECT m FROM MonthlyBatch m WHERE m.dateStart IS NULL AND m.batch < :batch ORDER BY m.batch DESC")
+    List<MonthlyBatch> findUndatedPageAfter(@Param("batch") String batch, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT m FROM MonthlyBatch m ORDER BY m.dateStart DESC")
+    Stream<MonthlyBatch> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT m FROM MonthlyBatch m WHERE m.dateStart >= :start AND m.dateStart <= :end ORDER BY m.dateStart DESC")
+    Stream<MonthlyBatch> streamByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT m.batch, COUNT(m) FROM MonthlyBatch m WHERE m.batch IS NOT NULL GROUP BY m.batch")
+    List<Object[]> countGroupedByBatch();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MonthlyBatch b WHERE b.batch IN :batches")
+    List<MonthlyBatch> findAllForUpdate(@Param("batches") Collection<String> batches);
+
+    @Modifying
+    @Query("DELETE FROM MonthlyBatch b WHERE b.batch IN :batches")
+    int deleteRows(@Param("batches") Collection<String> batches);
 
 }
@@ -0,0 +1,80 @@
+package org.example.labbackend.repository;
+
+import jakarta.persistence.QueryHint;
+import org.example.labbackend.model.MonthlyStats;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MonthlyStatsRepository extends JpaRepository<MonthlyStats, MonthlyStats.Key> {
+
+    @Query("SELECT s FROM MonthlyStats s WHERE s.year = :year AND s.batchCount > 0 ORDER BY s.month")
+    List<MonthlyStats> findByYear(@Param("year") int year);
+
+    @Query("SELECT DISTINCT s.year FROM MonthlyStats s WHERE s.batchCount > 0 ORDER BY s.year DESC")
+    List<Integer> findAvailableYears();
+
+    // Native statements name the table they write, or Hibernate evicts every cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "monthly_stats"))
+    @Query(value = """
+        INSERT INTO monthly_stats
+            (stat_year, stat_month, batch_count, batches_released, total_pounds, rework_batches, rework_pounds)
+        VALUES (:year, :month, :batchCount, :batchesReleased, :totalPounds, :reworkBatches, :reworkPounds)
+        ON DUPLICATE KEY UPDATE
+            batch_count = batch_count + :batchCount,
+            batches_released = batches_released + :batchesReleased,
+            total_pounds = total_pounds + :totalPounds,
+            rework_batches = rework_batches + :reworkBatches,
+            rework_pounds = rework_pounds + :reworkPounds
+        """, nativeQuery = true)
+    void applyDelta(@Param("year") int year,
+                    @Param("month") int month,
+                    @Param("batchCount") long batchCount,
+                    @Param("batchesReleased") long batchesReleased,
+                    @Param("totalPounds") long totalPounds,
+                    @Param("reworkBatches") long reworkBatches,
+                    @Param("reworkPounds") long reworkPounds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "monthly_stats"))
+    @Query(value = "DELETE FROM monthly_stats", nativeQuery = true)
+    void deleteAllStats();
+
+    // The month letter and year digit are checked by character code, like StatsContribution does:
+    // string comparisons follow the column's case- and accent-insensitive collation
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "monthly_stats"))
+    @Query(value = """
+        INSERT INTO monthly_stats
+            (stat_year, stat_month, batch_count, batches_released, total_pounds, rework_batches, rework_pounds)
+        SELECT
+            2020 + year_digit,
+            month_num,
+            COUNT(*),
+            COUNT(CASE WHEN released = 'Yes' THEN 1 END),
+            COALESCE(SUM(CASE WHEN released = 'Yes' THEN lbs ELSE 0 END), 0),
+            COUNT(CASE WHEN released = 'No' THEN 1 END),
+            COALESCE(SUM(CASE WHEN released = 'No' THEN lbs ELSE 0 END), 0)
+        FROM (
+            SELECT
+                ASCII(UPPER(SUBSTRING(batch, 2, 1))) - 64 AS month_num,
+                CAST(SUBSTRING(batch, 3, 1) AS UNSIGNED) AS year_digit,
+                released,
+                lbs
+            FROM monthly_batches
+            WHERE ASCII(UPPER(SUBSTRING(batch, 2, 1))) BETWEEN 65 AND 76
+              AND ASCII(SUBSTRING(batch, 3, 1)) BETWEEN 48 AND 57
+        ) t
+        GROUP BY year_digit, month_num
+        """, nativeQuery = true)
+    void insertAggregatedFromBatches();
+
+}
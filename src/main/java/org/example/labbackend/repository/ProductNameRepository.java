@@ -1,14 +1,50 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.ProductName;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductNameRepository extends JpaRepository<ProductName, Integer> {
 
     List<ProductName> findByNameContainingIgnoreCase(String name);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p FROM ProductName p ORDER BY p.code")
+    Stream<ProductName> streamAll();
+
+    // Single rows go through the managed entity: a JPQL UPDATE or DELETE would evict every cached name
+
+    @Transactional
+    default int updateName(Integer code, String name) {
+        return findById(code).map(product -> {
+            product.setName(name);
+            return 1;
+        }).orElse(0);
+    }
+
+    @Transactional
+    default int deleteRow(Integer code) {
+        return findById(code).map(product -> {
+            delete(product);
+            return 1;
+        }).orElse(0);
+    }
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductName p WHERE p.code IN :codes")
+    int deleteRows(@Param("codes") Collection<Integer> codes);
+
 }
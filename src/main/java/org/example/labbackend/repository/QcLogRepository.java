@@ -1,22 +1,91 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.QcLog;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface QcLogRepository extends JpaRepository<QcLog, String> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<QcLog> findByCode(String code);
 
     List<QcLog> findByReleasedBy(String releasedBy);
 
+    List<QcLog> findByBatchCodeYearAndBatchCodeMonth(Integer year, Integer month);
+
+    List<QcLog> findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(String plant, Integer year, Integer month);
+
     List<QcLog> findByBatchContainingIgnoreCase(String batch);
 
     @Query("SELECT q FROM QcLog q ORDER BY q.date DESC")
     List<QcLog> findAllOrderByDateDesc();
 
+    @Query("SELECT q FROM QcLog q ORDER BY q.date DESC, q.batch DESC")
+    List<QcLog> findFirstPage(Limit limit);
+
+    @Query("""
+        SELECT q FROM QcLog q
+        WHERE q.date < :date OR (q.date = :date AND q.batch < :batch) OR q.date IS NULL
+        ORDER BY q.date DESC, q.batch DESC
+        """)
+    List<QcLog> findPageAfter(@Param("date") String date, @Param("batch") String batch, Limit limit);
+
+    @Query("SELECT q FROM QcLog q WHERE q.date IS NULL AND q.batch < :batch ORDER BY q.batch DESC")
+    List<QcLog> findUndatedPageAfter(@Param("batch") String batch, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT q FROM QcLog q ORDER BY q.date DESC")
+    Stream<QcLog> streamAll();
+
+    @Query("SELECT q.batch, COUNT(q) FROM QcLog q WHERE q.batch IS NOT NULL GROUP BY q.batch")
+    List<Object[]> countGroupedByBatch();
+
+    /**
+     * Deletes one QC log through the managed entity. A JPQL DELETE would evict
+     * every cached QC log; this evicts only this one.
+     */
+    @Transactional
+    default int deleteRow(String batch) {
+        return findById(batch).map(qcLog -> {
+            delete(qcLog);
+            return 1;
+        }).orElse(0);
+    }
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QcLog q WHERE q.batch IN :batches")
+    int deleteRows(@Param("batches") Collection<String> batches);
+
+    /**
+     * Replaces one QC log's fields through the managed entity, so only that entry
+     * leaves the second-level cache. The batch is the key, so the parsed batch
+     * columns never change here.
+     */
+    @Transactional
+    default int updateRow(String batch, QcLog values) {
+        return findById(batch).map(qcLog -> {
+            qcLog.setCode(values.getCode());
+            qcLog.setSuffix(values.getSuffix());
+            qcLog.setPen60x(values.getPen60x());
+            qcLog.setDropPoint(values.getDropPoint());
+            qcLog.setDate(values.getDate());
+            qcLog.setReleasedBy(values.getReleasedBy());
+            return 1;
+        }).orElse(0);
+    }
+
 }
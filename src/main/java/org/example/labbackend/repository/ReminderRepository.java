@@ -1,16 +1,22 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.Reminder;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, Long> {
@@ -21,20 +27,19 @@ public interface ReminderRepository extends JpaRepository<Reminder, Long> {
 
     List<Reminder> findByBatchContainingIgnoreCase(String batch);
 
-    List<Reminder> findByNotifiedFalseAndDueBefore(Instant now);
-
     List<Reminder> findByNotifiedFalse();
 
+    List<Reminder> findByReminderIdIn(Collection<String> reminderIds);
+
     @Query("SELECT r FROM Reminder r WHERE r.notified = false ORDER BY r.due ASC")
     List<Reminder> findAllPendingOrderByDue();
 
     @Query("SELECT r FROM Reminder r ORDER BY r.due ASC")
     List<Reminder> findAllOrderByDue();
 
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM Reminder r WHERE r.notified = true")
-    void deleteAllNotified();
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT r FROM Reminder r ORDER BY r.due ASC")
+    Stream<Reminder> streamAll();
 
     @Modifying
     @Transactional
@@ -42,4 +47,62 @@ public interface ReminderRepository extends JpaRepository<Reminder, Long> {
 
     boolean existsByReminderId(String reminderId);
 
+    @Query("SELECT r.batch, COUNT(r) FROM Reminder r WHERE r.batch IS NOT NULL GROUP BY r.batch")
+    List<Object[]> countGroupedByBatch();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Reminder r WHERE r.id IN :ids")
+    int deleteRows(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reminder r WHERE r.id IN :ids")
+    List<Reminder> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reminder r WHERE r.reminderId = :reminderId")
+    List<Reminder> findByReminderIdForUpdate(@Param("reminderId") String reminderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reminder r WHERE r.notified = true")
+    List<Reminder> findNotifiedForUpdate();
+
+    /**
+     * Deletes the given reminders and returns the batch of each one deleted, for
+     * the batch search index. The rows are locked and read first, so a concurrent
+     * delete of the same rows cannot report them too.
+     */
+    @Transactional
+    default List<String> deleteReturningBatches(Collection<Long> ids) {
+        return deleteLocked(findAllForUpdate(ids));
+    }
+
+    @Transactional
+    default List<String> deleteByReminderIdReturningBatches(String reminderId) {
+        return deleteLocked(findByReminderIdForUpdate(reminderId));
+    }
+
+    @Transactional
+    default List<String> deleteNotifiedReturningBatches() {
+        return deleteLocked(findNotifiedForUpdate());
+    }
+
+    private List<String> deleteLocked(List<Reminder> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        deleteRows(rows.stream().map(Reminder::getId).toList());
+        return rows.stream().map(Reminder::getBatch).toList();
+    }
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reminder r SET r.notified = true WHERE r.id = :id")
+    int markNotified(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reminder r SET r.notified = true WHERE r.id IN :ids")
+    int markNotified(@Param("ids") Collection<Long> ids);
+
 }
@@ -1,13 +1,23 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.Retain;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RetainRepository extends JpaRepository<Retain, Long> {
@@ -18,6 +28,10 @@ public interface RetainRepository extends JpaRepository<Retain, Long> {
 
     List<Retain> findByBox(Long box);
 
+    List<Retain> findByBatchCodeYearAndBatchCodeMonth(Integer year, Integer month);
+
+    List<Retain> findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(String plant, Integer year, Integer month);
+
     List<Retain> findByBatchContainingIgnoreCase(String batch);
 
     @Query("SELECT r FROM Retain r WHERE r.date >= :start AND r.date <= :end ORDER BY r.date DESC")
@@ -26,4 +40,52 @@ public interface RetainRepository extends JpaRepository<Retain, Long> {
     @Query("SELECT r FROM Retain r ORDER BY r.date DESC")
     List<Retain> findAllOrderByDateDesc();
 
+    @Query("SELECT r FROM Retain r ORDER BY r.date DESC, r.id DESC")
+    List<Retain> findFirstPage(Limit limit);
+
+    @Query("""
+        SELECT r FROM Retain r
+        WHERE r.date < :date OR (r.date = :date AND r.id < :id) OR r.date IS NULL
+        ORDER BY r.date DESC, r.id DESC
+        """)
+    List<Retain> findPageAfter(@Param("date") Date date, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT r FROM Retain r WHERE r.date IS NULL AND r.id < :id ORDER BY r.id DESC")
+    List<Retain> findUndatedPageAfter(@Param("id") Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT r FROM Retain r ORDER BY r.date DESC")
+    Stream<Retain> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT r FROM Retain r WHERE r.date >= :start AND r.date <= :end ORDER BY r.date DESC")
+    Stream<Retain> streamByDateRange(@Param("start") Date start, @Param("end") Date end);
+
+    @Query("SELECT r.batch, COUNT(r) FROM Retain r WHERE r.batch IS NOT NULL GROUP BY r.batch")
+    List<Object[]> countGroupedByBatch();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Retain r WHERE r.id IN :ids")
+    List<Retain> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the given rows and returns the batch of each row deleted, for the
+     * batch search index. The rows are locked and read first, so a concurrent
+     * delete of the same rows cannot report them too.
+     */
+    @Transactional
+    default List<String> deleteReturningBatches(Collection<Long> ids) {
+        List<Retain> rows = findAllForUpdate(ids);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        deleteRows(rows.stream().map(Retain::getId).toList());
+        return rows.stream().map(Retain::getBatch).toList();
+    }
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Retain r WHERE r.id IN :ids")
+    int deleteRows(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,10 @@
+package org.example.labbackend.repository;
+
+import org.example.labbackend.model.TelegramOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TelegramOffsetRepository extends JpaRepository<TelegramOffset, String> {
+
+}
@@ -1,13 +1,23 @@
 package org.example.labbackend.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.labbackend.model.TestingData;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TestingDataRepository extends JpaRepository<TestingData, Long> {
@@ -16,14 +26,66 @@ public interface TestingDataRepository extends JpaRepository<TestingData, Long>
 
     List<TestingData> findByDate(LocalDate date);
 
+    List<TestingData> findByBatchCodeYearAndBatchCodeMonth(Integer year, Integer month);
+
+    List<TestingData> findByBatchCodePlantAndBatchCodeYearAndBatchCodeMonth(String plant, Integer year, Integer month);
+
     @Query("SELECT t FROM TestingData t WHERE t.date >= :start AND t.date <= :end ORDER BY t.date DESC")
     List<TestingData> findByDateRange(@Param("start") LocalDate start, @Param("end") LocalDate end);
 
     @Query("SELECT t FROM TestingData t ORDER BY t.date DESC")
     List<TestingData> findAllOrderByDateDesc();
 
+    @Query("SELECT t FROM TestingData t ORDER BY t.date DESC, t.id DESC")
+    List<TestingData> findFirstPage(Limit limit);
+
+    @Query("""
+        SELECT t FROM TestingData t
+        WHERE t.date < :date OR (t.date = :date AND t.id < :id) OR t.date IS NULL
+        ORDER BY t.date DESC, t.id DESC
+        """)
+    List<TestingData> findPageAfter(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT t FROM TestingData t WHERE t.date IS NULL AND t.id < :id ORDER BY t.id DESC")
+    List<TestingData> findUndatedPageAfter(@Param("id") Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT t FROM TestingData t ORDER BY t.date DESC")
+    Stream<TestingData> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT t FROM TestingData t WHERE t.date >= :start AND t.date <= :end ORDER BY t.date DESC")
+    Stream<TestingData> streamByDateRange(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
     List<TestingData> findByBatchContainingIgnoreCase(String batch);
 
     List<TestingData> findByBatch(String batch);
 
+    @Query("SELECT t.batch, COUNT(t) FROM TestingData t WHERE t.batch IS NOT NULL GROUP BY t.batch")
+    List<Object[]> countGroupedByBatch();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TestingData t WHERE t.id IN :ids")
+    List<TestingData> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the given rows and returns the batch of each row deleted, for the
+     * batch search index. The rows are locked and read first, so a concurrent
+     * delete of the same rows cannot report them too.
+     */
+    @Transactional
+    default List<String> deleteReturningBatches(Collection<Long> ids) {
+        List<TestingData> rows = findAllForUpdate(ids);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        deleteRows(rows.stream().map(TestingData::getId).toList());
+        return rows.stream().map(TestingData::getBatch).toList();
+    }
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TestingData t WHERE t.id IN :ids")
+    int deleteRows(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,81 @@
+package org.example.labbackend.repository;
+
+import jakarta.persistence.QueryHint;
+import org.example.labbackend.model.Measurement;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.model.TestingMeasurement;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface TestingMeasurementRepository extends JpaRepository<TestingMeasurement, TestingMeasurement.Key> {
+
+    List<TestingMeasurement> findByTestingId(Long testingId);
+
+    // Null filters are ignored; min and max are inclusive and compared in the stored unit
+    @Query("""
+        SELECT t FROM TestingData t
+        WHERE t.id IN (
+            SELECT m.testingId FROM TestingMeasurement m
+            WHERE m.measurement = :measurement
+              AND m.numericValue IS NOT NULL
+              AND (:code IS NULL OR m.code = :code)
+              AND (:unit IS NULL OR m.unit = :unit)
+              AND (:start IS NULL OR m.testDate >= :start)
+              AND (:end IS NULL OR m.testDate <= :end)
+              AND (:min IS NULL OR m.numericValue >= :min)
+              AND (:max IS NULL OR m.numericValue <= :max))
+        ORDER BY t.date DESC, t.id DESC
+        """)
+    List<TestingData> findByMeasurementRange(@Param("measurement") Measurement measurement,
+                                             @Param("code") String code,
+                                             @Param("unit") String unit,
+                                             @Param("start") LocalDate start,
+                                             @Param("end") LocalDate end,
+                                             @Param("min") Double min,
+                                             @Param("max") Double max);
+
+    // Rows are [unit, count] for the numeric values streamValues could return, most common first
+    @Query("""
+        SELECT m.unit, COUNT(m) FROM TestingMeasurement m
+        WHERE m.measurement = :measurement
+          AND m.code = :code
+          AND m.numericValue IS NOT NULL
+          AND (:start IS NULL OR m.testDate >= :start)
+          AND (:end IS NULL OR m.testDate <= :end)
+        GROUP BY m.unit
+        ORDER BY COUNT(m) DESC
+        """)
+    List<Object[]> countUnits(@Param("measurement") Measurement measurement,
+                              @Param("code") String code,
+                              @Param("start") LocalDate start,
+                              @Param("end") LocalDate end);
+
+    // Rows are [testingId, testDate, numericValue] in test order, read through a forward-only cursor.
+    // Only values in one unit are returned; a null unit selects the values recorded without one.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("""
+        SELECT m.testingId, m.testDate, m.numericValue FROM TestingMeasurement m
+        WHERE m.measurement = :measurement
+          AND m.code = :code
+          AND m.numericValue IS NOT NULL
+          AND (m.unit = :unit OR (:unit IS NULL AND m.unit IS NULL))
+          AND (:start IS NULL OR m.testDate >= :start)
+          AND (:end IS NULL OR m.testDate <= :end)
+        ORDER BY m.testDate, m.testingId
+        """)
+    Stream<Object[]> streamValues(@Param("measurement") Measurement measurement,
+                                  @Param("code") String code,
+                                  @Param("unit") String unit,
+                                  @Param("start") LocalDate start,
+                                  @Param("end") LocalDate end);
+
+}
@@ -0,0 +1,116 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.model.BatchCode;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.QcLog;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.model.Retain;
+import org.example.labbackend.model.TestingData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the parsed batch columns (batch_plant, batch_year, ...) for rows written
+ * before those columns existed or written directly to the database. Rows whose
+ * batch does not parse get {@link BatchCode#UNPARSEABLE_YEAR}, so each row is
+ * read once rather than on every startup. Walks each
+ * table in primary-key order in fixed-size chunks, one transaction per chunk, so
+ * it never holds long locks or loads a whole table.
+ */
+@Service
+public class BatchCodeBackfillService {
+
+    private static final List<BackfillTable> TABLES = List.of(
+            new BackfillTable("monthly_batches", "batch", false, MonthlyBatch.class, TableVersions.Table.BATCHES),
+            new BackfillTable("qc", "batch", false, QcLog.class, TableVersions.Table.QC),
+            new BackfillTable("testing_data", "id", true, TestingData.class, TableVersions.Table.TESTING),
+            new BackfillTable("retains", "id", true, Retain.class, TableVersions.Table.RETAINS),
+            new BackfillTable("reminders", "id", true, Reminder.class, TableVersions.Table.REMINDERS)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TableVersions tableVersions;
+    private final SecondLevelCache secondLevelCache;
+    private final int chunkSize;
+
+    public BatchCodeBackfillService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TableVersions tableVersions,
+            SecondLevelCache secondLevelCache,
+            @Value("${batch-code.backfill.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tableVersions = tableVersions;
+        this.secondLevelCache = secondLevelCache;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Thread.ofVirtual().name("batch-code-backfill").start(this::backfillAll);
+    }
+
+    public void backfillAll() {
+        for (BackfillTable table : TABLES) {
+            try {
+                int updated = backfill(table);
+                if (updated > 0) {
+                    // The /period endpoints read these columns
+                    tableVersions.bump(table.version());
+                    secondLevelCache.evict(table.entity());
+                    System.out.println("Backfilled batch code columns for " + updated + " rows in " + table.name());
+                }
+            } catch (Exception e) {
+                System.err.println("Batch code backfill failed for " + table.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private int backfill(BackfillTable table) {
+        String select = "SELECT " + table.keyColumn() + ", batch FROM " + table.name()
+                + " WHERE " + table.keyColumn() + " > ? AND batch_year IS NULL AND batch IS NOT NULL"
+                + " ORDER BY " + table.keyColumn() + " LIMIT ?";
+        String update = "UPDATE " + table.name()
+                + " SET batch_plant = ?, batch_year = ?, batch_month = ?, batch_seq = ?, batch_suffix = ?"
+                + " WHERE " + table.keyColumn() + " = ?";
+
+        Object lastKey = table.numericKey() ? (Object) 0L : "";
+        int total = 0;
+
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(select,
+                    (rs, rowNum) -> new Object[]{rs.getObject(1), rs.getString(2)},
+                    lastKey, chunkSize);
+            if (rows.isEmpty()) {
+                return total;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                BatchCode code = BatchCode.of((String) row[1]);
+                updates.add(new Object[]{code.getPlant(), code.getYear(), code.getMonth(),
+                        code.getSequence(), code.getSuffix(), row[0]});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(update, updates));
+            total += updates.size();
+
+            lastKey = rows.get(rows.size() - 1)[0];
+            if (rows.size() < chunkSize) {
+                return total;
+            }
+        }
+    }
+
+    private record BackfillTable(String name, String keyColumn, boolean numericKey, Class<?> entity,
+                                 TableVersions.Table version) {}
+}
@@ -0,0 +1,171 @@
+package org.example.labbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.labbackend.dto.BatchDossier;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.model.QcLog;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.model.Retain;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.repository.MonthlyBatchRepository;
+import org.example.labbackend.repository.QcLogRepository;
+import org.example.labbackend.repository.ReminderRepository;
+import org.example.labbackend.repository.RetainRepository;
+import org.example.labbackend.repository.TestingDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Assembles everything known about one batch. The five lookups run concurrently
+ * on virtual threads, each with its own timeout, so the response takes as long
+ * as the slowest query rather than the sum of them; a source that fails or times
+ * out is reported in {@code unavailable} instead of failing the whole dossier.
+ *
+ * Each lookup runs in a read-only transaction whose timeout Hibernate passes to
+ * the JDBC statement, so a timed-out query is cancelled on the server rather than
+ * left holding its connection. A semaphore caps the lookups running across all
+ * dossiers, so a burst of dossier requests cannot take the whole pool.
+ */
+@Service
+public class BatchDossierService {
+
+    private final MonthlyBatchRepository monthlyBatchRepository;
+    private final QcLogRepository qcLogRepository;
+    private final TestingDataRepository testingDataRepository;
+    private final RetainRepository retainRepository;
+    private final ReminderRepository reminderRepository;
+    private final ProductDirectory productDirectory;
+    private final long sourceTimeoutMs;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore queryPermits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BatchDossierService(
+            MonthlyBatchRepository monthlyBatchRepository,
+            QcLogRepository qcLogRepository,
+            TestingDataRepository testingDataRepository,
+            RetainRepository retainRepository,
+            ReminderRepository reminderRepository,
+            ProductDirectory productDirectory,
+            PlatformTransactionManager transactionManager,
+            @Value("${dossier.source-timeout-ms:2000}") long sourceTimeoutMs,
+            @Value("${dossier.max-concurrent-queries:10}") int maxConcurrentQueries) {
+        this.monthlyBatchRepository = monthlyBatchRepository;
+        this.qcLogRepository = qcLogRepository;
+        this.testingDataRepository = testingDataRepository;
+        this.retainRepository = retainRepository;
+        this.reminderRepository = reminderRepository;
+        this.productDirectory = productDirectory;
+        this.sourceTimeoutMs = sourceTimeoutMs;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Transaction timeouts are whole seconds
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, (sourceTimeoutMs + 999) / 1000));
+        this.queryPermits = new Semaphore(maxConcurrentQueries);
+    }
+
+    /**
+     * Returns the dossier, or empty when no source knows the batch and none failed.
+     */
+    public Optional<BatchDossier> assemble(String batch) {
+        CompletableFuture<Optional<MonthlyBatch>> production = fetch(() -> monthlyBatchRepository.findById(batch));
+        CompletableFuture<Optional<QcLog>> qc = fetch(() -> qcLogRepository.findById(batch));
+        CompletableFuture<List<TestingData>> testing = fetch(() -> testingDataRepository.findByBatch(batch));
+        CompletableFuture<List<Retain>> retains = fetch(() -> retainRepository.findByBatch(batch));
+        CompletableFuture<List<Reminder>> reminders = fetch(() -> reminderRepository.findByBatch(batch));
+
+        List<String> unavailable = new ArrayList<>();
+        MonthlyBatch productionResult = resultOf("production", production, Optional.<MonthlyBatch>empty(), unavailable).orElse(null);
+        QcLog qcResult = resultOf("qc", qc, Optional.<QcLog>empty(), unavailable).orElse(null);
+        List<TestingData> testingResult = resultOf("testing", testing, List.of(), unavailable);
+        List<Retain> retainsResult = resultOf("retains", retains, List.of(), unavailable);
+        List<Reminder> remindersResult = resultOf("reminders", reminders, List.of(), unavailable);
+
+        if (unavailable.isEmpty() && productionResult == null && qcResult == null
+                && testingResult.isEmpty() && retainsResult.isEmpty() && remindersResult.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ProductName product = productCode(productionResult, qcResult, testingResult)
+                .flatMap(productDirectory::findByCode)
+                .orElse(null);
+
+        return Optional.of(new BatchDossier(batch, productionResult, product, qcResult,
+                testingResult, retainsResult, remindersResult, unavailable));
+    }
+
+    private Optional<Integer> productCode(MonthlyBatch production, QcLog qc, List<TestingData> testing) {
+        if (production != null && production.getCode() != null) {
+            return Optional.of(production.getCode());
+        }
+        // QC and testing rows store the code as text
+        List<String> candidates = new ArrayList<>();
+        if (qc != null) {
+            candidates.add(qc.getCode());
+        }
+        testing.forEach(row -> candidates.add(row.getCode()));
+        for (String candidate : candidates) {
+            if (candidate == null) {
+                continue;
+            }
+            try {
+                return Optional.of(Integer.parseInt(candidate.trim()));
+            } catch (NumberFormatException e) {
+                // not a numeric product code, try the next source
+            }
+        }
+        return Optional.empty();
+    }
+
+    private <T> CompletableFuture<T> fetch(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> runLimited(query), executor)
+                .orTimeout(sourceTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T runLimited(Supplier<T> query) {
+        try {
+            if (!queryPermits.tryAcquire(sourceTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CompletionException(new TimeoutException("No query slot free within " + sourceTimeoutMs + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            return readOnlyTransaction.execute(status -> query.get());
+        } finally {
+            queryPermits.release();
+        }
+    }
+
+    private <T> T resultOf(String source, CompletableFuture<T> future, T fallback, List<String> unavailable) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            System.err.println("Dossier source " + source + " unavailable: " + e.getMessage());
+            unavailable.add(source);
+            return fallback;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
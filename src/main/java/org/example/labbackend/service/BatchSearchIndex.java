@@ -0,0 +1,304 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.repository.MonthlyBatchRepository;
+import org.example.labbackend.repository.QcLogRepository;
+import org.example.labbackend.repository.ReminderRepository;
+import org.example.labbackend.repository.RetainRepository;
+import org.example.labbackend.repository.TestingDataRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory trigram index over the batch identifiers of every table that has
+ * one, so substring search does not need a LIKE '%x%' scan per table.
+ *
+ * Inserts and deletes are applied as soon as the API writes them; the delete
+ * paths read back the batch of every row they remove. Rows changed outside the
+ * API are reconciled by the periodic rebuild.
+ *
+ * Writes that arrive during a rebuild are journaled and replayed onto the new
+ * snapshot. The row counts of testing, retains and reminders are additive, so
+ * for those only the writes journaled after that table was loaded are replayed;
+ * earlier ones are already in the counts read from the database.
+ */
+@Service
+public class BatchSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Source, Supplier<List<Object[]>>> loaders;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // batch -> number of rows per source that carry it
+    private Map<String, EnumMap<Source, Integer>> batches = new HashMap<>();
+    // trigram -> batches containing it
+    private Map<String, Set<String>> postings = new HashMap<>();
+
+    // Writes that arrive while a rebuild is running are replayed onto the new snapshot
+    private List<JournalEntry> journal;
+
+    public BatchSearchIndex(
+            MonthlyBatchRepository monthlyBatchRepository,
+            QcLogRepository qcLogRepository,
+            TestingDataRepository testingDataRepository,
+            RetainRepository retainRepository,
+            ReminderRepository reminderRepository) {
+        this.loaders = new EnumMap<>(Source.class);
+        loaders.put(Source.BATCHES, monthlyBatchRepository::countGroupedByBatch);
+        loaders.put(Source.QC, qcLogRepository::countGroupedByBatch);
+        loaders.put(Source.TESTING, testingDataRepository::countGroupedByBatch);
+        loaders.put(Source.RETAINS, retainRepository::countGroupedByBatch);
+        loaders.put(Source.REMINDERS, reminderRepository::countGroupedByBatch);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${batch-search.refresh-ms:600000}", initialDelayString = "${batch-search.refresh-ms:600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, EnumMap<Source, Integer>> newBatches = new HashMap<>();
+        Map<String, Set<String>> newPostings = new HashMap<>();
+        // Journal length when each table's query was sent
+        Map<Source, Integer> loadedAt = new EnumMap<>(Source.class);
+        try {
+            for (Map.Entry<Source, Supplier<List<Object[]>>> loader : loaders.entrySet()) {
+                loadedAt.put(loader.getKey(), journalLength());
+                for (Object[] row : loader.getValue().get()) {
+                    addTo(newBatches, newPostings, loader.getKey(), (String) row[0], ((Number) row[1]).intValue());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Batch search index rebuild failed: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            batches = newBatches;
+            postings = newPostings;
+            for (int i = 0; i < journal.size(); i++) {
+                JournalEntry entry = journal.get(i);
+                // Unique sources are set rather than counted, so replaying them is harmless; MonthlyBatchService
+                // also indexes batches before its transaction commits, which the load may not have seen
+                if (entry.source().unique() || i >= loadedAt.get(entry.source())) {
+                    entry.change().run();
+                }
+            }
+            journal = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(Source source, String batch) {
+        apply(source, () -> addTo(batches, postings, source, batch, 1));
+    }
+
+    public void remove(Source source, String batch) {
+        apply(source, () -> removeFrom(source, batch));
+    }
+
+    /**
+     * Returns the batch identifiers containing {@code query} (case-insensitive),
+     * grouped by the table they appear in, at most {@code limit} per table. An
+     * exact match comes first, then identifiers starting with the query, then the
+     * rest, each group in alphabetical order.
+     */
+    public Map<String, List<String>> search(String query, int limit) {
+        String needle = normalize(query);
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (Source source : Source.values()) {
+            result.put(source.key(), new ArrayList<>());
+        }
+        if (needle == null) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (String batch : candidates(needle)) {
+                if (!batch.contains(needle)) {
+                    continue;
+                }
+                for (Source source : batches.get(batch).keySet()) {
+                    result.get(source.key()).add(batch);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<String> relevance = Comparator
+                .<String>comparingInt(batch -> batch.equals(needle) ? 0 : batch.startsWith(needle) ? 1 : 2)
+                .thenComparing(Comparator.naturalOrder());
+        result.replaceAll((key, matches) -> {
+            matches.sort(relevance);
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        });
+        return result;
+    }
+
+    private Iterable<String> candidates(String needle) {
+        if (needle.length() < GRAM) {
+            // Too short for a trigram lookup; the distinct batch set is small enough to scan
+            return batches.keySet();
+        }
+        Set<String> smallest = null;
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<String> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        Set<String> result = new HashSet<>(smallest);
+        for (Set<String> posting : lists) {
+            if (posting != smallest) {
+                result.retainAll(posting);
+            }
+        }
+        return result;
+    }
+
+    private void apply(Source source, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (journal != null) {
+                journal.add(new JournalEntry(source, change));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int journalLength() {
+        lock.readLock().lock();
+        try {
+            return journal.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addTo(Map<String, EnumMap<Source, Integer>> batches, Map<String, Set<String>> postings,
+                              Source source, String batch, int count) {
+        String key = normalize(batch);
+        if (key == null) {
+            return;
+        }
+        EnumMap<Source, Integer> sources = batches.get(key);
+        if (sources == null) {
+            sources = new EnumMap<>(Source.class);
+            batches.put(key, sources);
+            for (String gram : grams(key)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+            }
+        }
+        if (source.unique()) {
+            sources.put(source, 1);
+        } else {
+            sources.merge(source, count, Integer::sum);
+        }
+    }
+
+    private void removeFrom(Source source, String batch) {
+        String key = normalize(batch);
+        if (key == null) {
+            return;
+        }
+        EnumMap<Source, Integer> sources = batches.get(key);
+        if (sources == null) {
+            return;
+        }
+        sources.computeIfPresent(source, (s, count) -> count > 1 ? count - 1 : null);
+        if (sources.isEmpty()) {
+            batches.remove(key);
+            for (String gram : grams(key)) {
+                Set<String> posting = postings.get(gram);
+                if (posting != null) {
+                    posting.remove(key);
+                    if (posting.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String batch) {
+        if (batch == null) {
+            return null;
+        }
+        String key = batch.trim().toUpperCase();
+        return key.isEmpty() ? null : key;
+    }
+
+    private record JournalEntry(Source source, Runnable change) {}
+
+    public enum Source {
+        BATCHES("batches", true),
+        QC("qc", true),
+        TESTING("testing", false),
+        RETAINS("retains", false),
+        REMINDERS("reminders", false);
+
+        private final String key;
+        // The batch is the primary key, so a save of an existing batch must not count it twice
+        private final boolean unique;
+
+        Source(String key, boolean unique) {
+            this.key = key;
+            this.unique = unique;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public boolean unique() {
+            return unique;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.BulkImportResult.RowError;
+import org.example.labbackend.model.BatchCode;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.QcLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk create-or-replace for the tables keyed by batch (monthly_batches and qc),
+ * used by the nightly ERP sync. Each chunk is one batched
+ * INSERT ... ON DUPLICATE KEY UPDATE instead of an existsById, a merge SELECT
+ * and an UPDATE per row.
+ *
+ * For monthly batches the chunk also reads the current released/lbs of its
+ * batches in one query, so the monthly_stats rollup gets a single summed delta
+ * per month in the same transaction.
+ */
+@Service
+public class BatchUpsertService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String BATCH_UPSERT_SQL = """
+        INSERT INTO monthly_batches
+            (batch, code, date_start, date_end, lbs, released, type,
+             batch_plant, batch_year, batch_month, batch_seq, batch_suffix)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            code = VALUES(code),
+            date_start = VALUES(date_start),
+            date_end = VALUES(date_end),
+            lbs = VALUES(lbs),
+            released = VALUES(released),
+            type = VALUES(type),
+            batch_plant = VALUES(batch_plant),
+            batch_year = VALUES(batch_year),
+            batch_month = VALUES(batch_month),
+            batch_seq = VALUES(batch_seq),
+            batch_suffix = VALUES(batch_suffix)
+        """;
+
+    private static final String QC_UPSERT_SQL = """
+        INSERT INTO qc
+            (batch, code, suffix, pen_60x, drop_point, date, released_by,
+             batch_plant, batch_year, batch_month, batch_seq, batch_suffix)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            code = VALUES(code),
+            suffix = VALUES(suffix),
+            pen_60x = VALUES(pen_60x),
+            drop_point = VALUES(drop_point),
+            date = VALUES(date),
+            released_by = VALUES(released_by),
+            batch_plant = VALUES(batch_plant),
+            batch_year = VALUES(batch_year),
+            batch_month = VALUES(batch_month),
+            batch_seq = VALUES(batch_seq),
+            batch_suffix = VALUES(batch_suffix)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MonthlyBatchService monthlyBatchService;
+    private final BatchSearchIndex batchSearchIndex;
+    private final SecondLevelCache secondLevelCache;
+    private final TableVersions tableVersions;
+    private final int chunkSize;
+
+    public BatchUpsertService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MonthlyBatchService monthlyBatchService,
+            BatchSearchIndex batchSearchIndex,
+            SecondLevelCache secondLevelCache,
+            TableVersions tableVersions,
+            @Value("${import.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthlyBatchService = monthlyBatchService;
+        this.batchSearchIndex = batchSearchIndex;
+        this.secondLevelCache = secondLevelCache;
+        this.tableVersions = tableVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkImportResult upsertBatches(List<MonthlyBatch> rows) {
+        return new UpsertRun<MonthlyBatch>(BatchSearchIndex.Source.BATCHES) {
+            @Override
+            void write(List<MonthlyBatch> chunk) {
+                List<MonthlyBatch> previous = findCurrentBatches(chunk);
+                jdbcTemplate.batchUpdate(BATCH_UPSERT_SQL, chunk, chunk.size(), BatchUpsertService::bindBatch);
+                secondLevelCache.evict(MonthlyBatch.class);
+                monthlyBatchService.applyStatsChange(previous, chunk);
+                tableVersions.bump(TableVersions.Table.BATCHES);
+            }
+
+            @Override
+            String batchOf(MonthlyBatch row) {
+                return row.getBatch();
+            }
+        }.run(rows);
+    }
+
+    public BulkImportResult upsertQcLogs(List<QcLog> rows) {
+        return new UpsertRun<QcLog>(BatchSearchIndex.Source.QC) {
+            @Override
+            void write(List<QcLog> chunk) {
+                jdbcTemplate.batchUpdate(QC_UPSERT_SQL, chunk, chunk.size(), BatchUpsertService::bindQcLog);
+                secondLevelCache.evict(QcLog.class);
+                tableVersions.bump(TableVersions.Table.QC);
+            }
+
+            @Override
+            String batchOf(QcLog row) {
+                return row.getBatch();
+            }
+        }.run(rows);
+    }
+
+    // Locked until the chunk commits, so a concurrent write cannot change a row between
+    // reading its old rollup contribution and the upsert replacing it
+    private List<MonthlyBatch> findCurrentBatches(List<MonthlyBatch> chunk) {
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        return jdbcTemplate.query(
+                "SELECT batch, lbs, released FROM monthly_batches WHERE batch IN (" + placeholders + ") FOR UPDATE",
+                (rs, rowNum) -> {
+                    MonthlyBatch current = new MonthlyBatch();
+                    current.setBatch(rs.getString(1));
+                    current.setLbs(rs.getObject(2, Integer.class));
+                    current.setReleased(rs.getString(3));
+                    return current;
+                },
+                chunk.stream().map(MonthlyBatch::getBatch).toArray());
+    }
+
+    private static void bindBatch(PreparedStatement ps, MonthlyBatch row) throws SQLException {
+        ps.setObject(1, row.getBatch());
+        ps.setObject(2, row.getCode());
+        ps.setObject(3, row.getDateStart());
+        ps.setObject(4, row.getDateEnd());
+        ps.setObject(5, row.getLbs());
+        ps.setObject(6, row.getReleased());
+        ps.setObject(7, row.getType());
+        BatchCode.bind(ps, 8, row.getBatch());
+    }
+
+    private static void bindQcLog(PreparedStatement ps, QcLog row) throws SQLException {
+        ps.setObject(1, row.getBatch());
+        ps.setObject(2, row.getCode());
+        ps.setObject(3, row.getSuffix());
+        ps.setObject(4, row.getPen60x());
+        ps.setObject(5, row.getDropPoint());
+        ps.setObject(6, row.getDate());
+        ps.setObject(7, row.getReleasedBy());
+        BatchCode.bind(ps, 8, row.getBatch());
+    }
+
+    private abstract class UpsertRun<T> {
+
+        private final BatchSearchIndex.Source source;
+        private final List<RowError> errors = new ArrayList<>();
+        private int written;
+        private int failed;
+
+        UpsertRun(BatchSearchIndex.Source source) {
+            this.source = source;
+        }
+
+        abstract void write(List<T> chunk);
+
+        abstract String batchOf(T row);
+
+        BulkImportResult run(List<T> rows) {
+            // Last occurrence of a batch wins, as it would with one PUT per row. Keyed
+            // case-insensitively because the batch column uses MySQL's default collation.
+            Map<String, Integer> latest = new LinkedHashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                String batch = batchOf(rows.get(i));
+                if (batch == null || batch.isBlank()) {
+                    reject(i + 1, "Missing batch");
+                } else {
+                    latest.remove(batch.trim().toUpperCase(Locale.ROOT));
+                    latest.put(batch.trim().toUpperCase(Locale.ROOT), i);
+                }
+            }
+
+            List<Integer> indexes = new ArrayList<>(latest.values());
+            for (int start = 0; start < indexes.size(); start += chunkSize) {
+                List<Integer> chunkIndexes = indexes.subList(start, Math.min(start + chunkSize, indexes.size()));
+                List<T> chunk = chunkIndexes.stream().map(rows::get).toList();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(chunk));
+                    written += chunk.size();
+                    chunk.forEach(row -> batchSearchIndex.add(source, batchOf(row)));
+                } catch (DataAccessException e) {
+                    // The chunk was rolled back; write its rows one by one to find the bad ones
+                    for (int i = 0; i < chunk.size(); i++) {
+                        T row = chunk.get(i);
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> write(List.of(row)));
+                            written++;
+                            batchSearchIndex.add(source, batchOf(row));
+                        } catch (DataAccessException rowError) {
+                            reject(chunkIndexes.get(i) + 1, NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                        }
+                    }
+                }
+            }
+            return new BulkImportResult(rows.size(), written, failed, errors);
+        }
+
+        private void reject(int rowNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(rowNumber, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.labbackend.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.model.QcLog;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.model.Retain;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.repository.MonthlyBatchRepository;
+import org.example.labbackend.repository.ProductNameRepository;
+import org.example.labbackend.repository.QcLogRepository;
+import org.example.labbackend.repository.ReminderRepository;
+import org.example.labbackend.repository.RetainRepository;
+import org.example.labbackend.repository.TestingDataRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables out as CSV or NDJSON. Rows are read through a
+ * forward-only MySQL cursor and detached as soon as they are written, so
+ * memory use does not depend on how many rows the table holds.
+ */
+@Service
+public class ExportService {
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {};
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ExportTable<?>> tables;
+
+    public ExportService(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            TestingDataRepository testingDataRepository,
+            MonthlyBatchRepository monthlyBatchRepository,
+            RetainRepository retainRepository,
+            QcLogRepository qcLogRepository,
+            ReminderRepository reminderRepository,
+            ProductNameRepository productNameRepository) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        ZoneId zone = ZoneId.systemDefault();
+        this.tables = Map.of(
+                "testing", new ExportTable<>("testing_data", TestingData::new,
+                        testingDataRepository::streamAll,
+                        testingDataRepository::streamByDateRange),
+                "batches", new ExportTable<>("monthly_batches", MonthlyBatch::new,
+                        monthlyBatchRepository::streamAll,
+                        (start, end) -> monthlyBatchRepository.streamByDateRange(
+                                start.atStartOfDay(), end.atTime(LocalTime.MAX))),
+                "retains", new ExportTable<>("retains", Retain::new,
+                        retainRepository::streamAll,
+                        (start, end) -> retainRepository.streamByDateRange(
+                                Date.from(start.atStartOfDay(zone).toInstant()),
+                                Date.from(end.atTime(LocalTime.MAX).atZone(zone).toInstant()))),
+                "qc", new ExportTable<>("qc", QcLog::new, qcLogRepository::streamAll, null),
+                "reminders", new ExportTable<>("reminders", Reminder::new, reminderRepository::streamAll, null),
+                "products", new ExportTable<>("names", ProductName::new, productNameRepository::streamAll, null)
+        );
+    }
+
+    public boolean supports(String entity) {
+        return tables.containsKey(entity);
+    }
+
+    public boolean supportsDateRange(String entity) {
+        ExportTable<?> table = tables.get(entity);
+        return table != null && table.byDateRange() != null;
+    }
+
+    public String fileName(String entity, Format format) {
+        return tables.get(entity).tableName() + (format == Format.CSV ? ".csv" : ".ndjson");
+    }
+
+    /**
+     * Writes every row of the entity (optionally limited to a date range) to the
+     * stream. Runs its own read-only transaction because it is called from the
+     * async thread that drives a StreamingResponseBody.
+     */
+    public void export(String entity, Format format, LocalDate start, LocalDate end, OutputStream out) {
+        ExportTable<?> table = tables.get(entity);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try {
+                write(table, format, start, end, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void write(ExportTable<T> table, Format format, LocalDate start, LocalDate end, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+
+        if (format == Format.CSV) {
+            // Header comes from a blank instance so empty exports still describe their columns
+            writeCsvLine(writer, objectMapper.convertValue(table.blank().get(), ROW_TYPE).keySet());
+        }
+
+        try (Stream<T> rows = start != null ? table.byDateRange().apply(start, end) : table.all().get()) {
+            rows.forEach(row -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, objectMapper.convertValue(row, ROW_TYPE).values());
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(row);
+            });
+        }
+        writer.flush();
+    }
+
+    private void writeCsvLine(Writer writer, Iterable<?> values) throws IOException {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            if (value != null) {
+                writer.write(escapeCsv(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public enum Format { CSV, NDJSON }
+
+    private record ExportTable<T>(
+            String tableName,
+            Supplier<T> blank,
+            Supplier<Stream<T>> all,
+            BiFunction<LocalDate, LocalDate, Stream<T>> byDateRange) {}
+}
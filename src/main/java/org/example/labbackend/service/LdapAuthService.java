@@ -1,32 +1,100 @@
 package org.example.labbackend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.naming.AuthenticationException;
 import javax.naming.Context;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.*;
+import java.time.Duration;
 import java.util.Hashtable;
+import java.util.Locale;
 
+/**
+ * Logs users in with an LDAP simple bind as themselves, then looks up their
+ * display name and mail.
+ *
+ * The user's bind only verifies the password and is never pooled. When a
+ * service account is configured ({@code ldap.service.user}), lookups run on
+ * pooled connections bound as that account, so a login opens one new connection
+ * instead of two. Lookups are cached per username for {@code ldap.user-cache.ttl},
+ * so at shift change a login costs one bind and no search. Every connection has
+ * connect and read timeouts, so a slow domain controller fails logins instead of
+ * hanging them.
+ */
 @Service
 public class LdapAuthService {
 
-    @Value("${ldap.url}")
-    private String ldapUrl;
+    private static final String[] USER_ATTRIBUTES = {"cn", "displayName", "mail", "sAMAccountName", "memberOf"};
 
-    @Value("${ldap.base.dn}")
-    private String baseDn;
+    private final String ldapUrl;
+    private final String baseDn;
+    private final String userSearchBase;
+    private final String userSearchFilter;
+    private final String ldapDomain;
+    private final String serviceUser;
+    private final String servicePassword;
+    private final String connectTimeoutMillis;
+    private final String readTimeoutMillis;
+    private final SearchControls userSearchControls;
+    private final Cache<String, LdapUserInfo> userInfoCache;
 
-    @Value("${ldap.user.search.base}")
-    private String userSearchBase;
+    public LdapAuthService(
+            @Value("${ldap.url}") String ldapUrl,
+            @Value("${ldap.base.dn}") String baseDn,
+            @Value("${ldap.user.search.base}") String userSearchBase,
+            @Value("${ldap.user.search.filter}") String userSearchFilter,
+            @Value("${ldap.domain:}") String ldapDomain,
+            @Value("${ldap.service.user:}") String serviceUser,
+            @Value("${ldap.service.password:}") String servicePassword,
+            @Value("${ldap.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${ldap.read-timeout:PT10S}") Duration readTimeout,
+            @Value("${ldap.pool.max-size:10}") int poolMaxSize,
+            @Value("${ldap.pool.idle-timeout:PT5M}") Duration poolIdleTimeout,
+            @Value("${ldap.user-cache.max-size:1000}") long userCacheMaxSize,
+            @Value("${ldap.user-cache.ttl:PT15M}") Duration userCacheTtl) {
+        this.ldapUrl = ldapUrl;
+        this.baseDn = baseDn;
+        this.userSearchBase = userSearchBase;
+        this.userSearchFilter = userSearchFilter;
+        this.ldapDomain = ldapDomain;
+        this.serviceUser = serviceUser;
+        this.servicePassword = servicePassword;
+        this.connectTimeoutMillis = String.valueOf(connectTimeout.toMillis());
+        this.readTimeoutMillis = String.valueOf(readTimeout.toMillis());
 
-    @Value("${ldap.user.search.filter}")
-    private String userSearchFilter;
+        this.userSearchControls = new SearchControls();
+        userSearchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        userSearchControls.setReturningAttributes(USER_ATTRIBUTES);
+        userSearchControls.setCountLimit(1);
+        userSearchControls.setTimeLimit((int) readTimeout.toMillis());
 
-    @Value("${ldap.domain:}")
-    private String ldapDomain;
+        this.userInfoCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(userCacheTtl)
+                .build();
 
+        // The JNDI pool is configured JVM-wide and read once, on first use; -D flags win
+        setPoolProperty("com.sun.jndi.ldap.connect.pool.maxsize", String.valueOf(poolMaxSize));
+        setPoolProperty("com.sun.jndi.ldap.connect.pool.timeout", String.valueOf(poolIdleTimeout.toMillis()));
+        setPoolProperty("com.sun.jndi.ldap.connect.pool.protocol", "plain ssl");
+    }
+
+    private static void setPoolProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    /**
+     * The user's details, or {@code null} if the directory rejected the credentials.
+     *
+     * @throws DirectoryUnavailableException if the directory could not be reached or timed out
+     */
     public LdapUserInfo authenticate(String username, String password) {
         DirContext ctx = null;
         try {
@@ -43,22 +111,75 @@ public class LdapAuthService {
                 userPrincipal = username + "@" + extractDomainFromBaseDn();
             }
 
-            Hashtable<String, String> env = new Hashtable<>();
-            env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
-            env.put(Context.PROVIDER_URL, ldapUrl);
-            env.put(Context.SECURITY_AUTHENTICATION, "simple");
-            env.put(Context.SECURITY_PRINCIPAL, userPrincipal);
-            env.put(Context.SECURITY_CREDENTIALS, password);
-
-            ctx = new InitialDirContext(env);
+            // Connections bound as a user are never pooled
+            ctx = new InitialDirContext(environment(userPrincipal, password, false));
 
             // If we get here, authentication was successful
             // Try to get user info
-            return getUserInfo(ctx, username);
+            String cacheKey = username.toLowerCase(Locale.ROOT);
+            LdapUserInfo cached = userInfoCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                // Keep the username as typed for this login
+                return new LdapUserInfo(username, cached.displayName(), cached.email());
+            }
+            LdapUserInfo userInfo;
+            if (hasServiceAccount()) {
+                // Release the user's connection before borrowing a pooled one
+                ctx.close();
+                ctx = null;
+                userInfo = lookupUserInfo(username);
+            } else {
+                userInfo = getUserInfo(ctx, username);
+            }
+            if (userInfo == null) {
+                // Not cached, so the next login tries the lookup again
+                return new LdapUserInfo(username, username, null);
+            }
+            userInfoCache.put(cacheKey, userInfo);
+            return userInfo;
 
-        } catch (NamingException e) {
+        } catch (AuthenticationException e) {
             System.err.println("LDAP authentication failed for user: " + username + " - " + e.getMessage());
             return null;
+        } catch (NamingException e) {
+            throw new DirectoryUnavailableException("LDAP bind failed for user: " + username + " - " + e.getMessage(), e);
+        } finally {
+            if (ctx != null) {
+                try {
+                    ctx.close();
+                } catch (NamingException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private boolean hasServiceAccount() {
+        return serviceUser != null && !serviceUser.isEmpty();
+    }
+
+    private Hashtable<String, String> environment(String principal, String credentials, boolean pooled) {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, ldapUrl);
+        env.put(Context.SECURITY_AUTHENTICATION, "simple");
+        env.put(Context.SECURITY_PRINCIPAL, principal);
+        env.put(Context.SECURITY_CREDENTIALS, credentials);
+        env.put("com.sun.jndi.ldap.connect.timeout", connectTimeoutMillis);
+        env.put("com.sun.jndi.ldap.read.timeout", readTimeoutMillis);
+        env.put("com.sun.jndi.ldap.connect.pool", String.valueOf(pooled));
+        return env;
+    }
+
+    // Closing a pooled context hands its connection back to the pool
+    private LdapUserInfo lookupUserInfo(String username) {
+        DirContext ctx = null;
+        try {
+            ctx = new InitialDirContext(environment(serviceUser, servicePassword, true));
+            return getUserInfo(ctx, username);
+        } catch (NamingException e) {
+            System.err.println("LDAP service account bind failed: " + e.getMessage());
+            return null;
         } finally {
             if (ctx != null) {
                 try {
@@ -109,41 +230,44 @@ public class LdapAuthService {
         return null;
     }
 
+    /**
+     * The user's entry, or {@code null} if it was not found or the search failed.
+     */
     private LdapUserInfo getUserInfo(DirContext ctx, String username) {
         try {
-            String searchFilter = userSearchFilter.replace("{0}", username);
-            SearchControls searchControls = new SearchControls();
-            searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            searchControls.setReturningAttributes(new String[]{"cn", "displayName", "mail", "sAMAccountName", "memberOf"});
-
+            // {0} is filled in by JNDI, which escapes filter metacharacters in the username
             NamingEnumeration<SearchResult> results = ctx.search(
                     baseDn,
-                    searchFilter,
-                    searchControls
+                    userSearchFilter,
+                    new Object[]{username},
+                    userSearchControls
             );
 
-            if (results.hasMore()) {
-                SearchResult result = results.next();
-                Attributes attrs = result.getAttributes();
+            try {
+                if (results.hasMore()) {
+                    SearchResult result = results.next();
+                    Attributes attrs = result.getAttributes();
 
-                String displayName = getAttributeValue(attrs, "displayName");
-                if (displayName == null) {
-                    displayName = getAttributeValue(attrs, "cn");
-                }
-                if (displayName == null) {
-                    displayName = username;
-                }
+                    String displayName = getAttributeValue(attrs, "displayName");
+                    if (displayName == null) {
+                        displayName = getAttributeValue(attrs, "cn");
+                    }
+                    if (displayName == null) {
+                        displayName = username;
+                    }
 
-                String email = getAttributeValue(attrs, "mail");
+                    String email = getAttributeValue(attrs, "mail");
 
-                return new LdapUserInfo(username, displayName, email);
+                    return new LdapUserInfo(username, displayName, email);
+                }
+            } finally {
+                // A pooled connection only goes back to the pool once its enumerations are closed
+                results.close();
             }
         } catch (NamingException e) {
             System.err.println("Error getting user info: " + e.getMessage());
         }
-
-        // Return basic info if we couldn't get details
-        return new LdapUserInfo(username, username, null);
+        return null;
     }
 
     private String getAttributeValue(Attributes attrs, String name) {
@@ -178,4 +302,10 @@ public class LdapAuthService {
     }
 
     public record LdapUserInfo(String username, String displayName, String email) {}
+
+    public static class DirectoryUnavailableException extends RuntimeException {
+        public DirectoryUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 }
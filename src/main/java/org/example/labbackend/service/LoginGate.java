@@ -0,0 +1,162 @@
+package org.example.labbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.labbackend.service.LdapAuthService.LdapUserInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs LDAP logins off the request thread so a slow directory cannot tie up
+ * Tomcat's workers. Each attempt runs on a virtual thread. At most
+ * {@code auth.login.max-concurrent} talk to the directory at once, and up to
+ * {@code auth.login.max-queued} more wait for a slot. Any further attempt is
+ * rejected straight away. Every attempt has a deadline of
+ * {@code auth.login.timeout}, which covers both the wait and the bind.
+ *
+ * Concurrent attempts with the same username and password (a double-clicked
+ * button, a client retrying) share one directory call. Attempts with different
+ * passwords never share a result, and nor do usernames spelled with different
+ * case: the shared result carries the username as the first caller typed it,
+ * which becomes the token subject.
+ */
+@Service
+public class LoginGate {
+
+    private final LdapAuthService ldapAuthService;
+    private final Semaphore permits;
+    private final int maxPending;
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Attempt, CompletableFuture<LdapUserInfo>> inFlight = new ConcurrentHashMap<>();
+    // Attempts admitted and not yet finished with the directory, including ones that already timed out
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Counter rejected;
+    private final Counter timedOut;
+    private final Counter coalesced;
+
+    public LoginGate(
+            LdapAuthService ldapAuthService,
+            MeterRegistry meterRegistry,
+            @Value("${auth.login.max-concurrent:8}") int maxConcurrent,
+            @Value("${auth.login.max-queued:64}") int maxQueued,
+            @Value("${auth.login.timeout:PT10S}") Duration timeout) {
+        this.ldapAuthService = ldapAuthService;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxPending = maxConcurrent + maxQueued;
+        this.timeout = timeout;
+
+        Gauge.builder("auth.login.pending", pending, AtomicInteger::get)
+                .description("Logins running or waiting for the directory")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("auth.login.rejected");
+        this.timedOut = meterRegistry.counter("auth.login.timed-out");
+        this.coalesced = meterRegistry.counter("auth.login.coalesced");
+    }
+
+    /**
+     * Completes with the user's details, or {@code null} for wrong credentials.
+     * Completes exceptionally with {@link RejectedExecutionException} when the
+     * queue is full, {@link TimeoutException} when the deadline passes, or
+     * {@link LdapAuthService.DirectoryUnavailableException} when the directory
+     * cannot be reached.
+     */
+    public CompletableFuture<LdapUserInfo> authenticate(String username, String password) {
+        Attempt attempt = new Attempt(username, digest(password));
+        CompletableFuture<LdapUserInfo> result = new CompletableFuture<>();
+        CompletableFuture<LdapUserInfo> existing = inFlight.putIfAbsent(attempt, result);
+        if (existing != null) {
+            coalesced.increment();
+            // A copy, so one caller cancelling does not affect the others
+            return existing.copy();
+        }
+        result.whenComplete((userInfo, error) -> inFlight.remove(attempt, result));
+
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException("Too many logins in progress"));
+            return result;
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .exceptionally(error -> {
+                    if (error instanceof TimeoutException) {
+                        timedOut.increment();
+                    }
+                    return null;
+                });
+        executor.execute(() -> {
+            try {
+                if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+                try {
+                    // Given up on while it waited for a slot
+                    if (!result.isDone()) {
+                        result.complete(ldapAuthService.authenticate(username, password));
+                    }
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] digest(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The password is only kept as a digest, and only while the attempt runs
+    private record Attempt(String username, byte[] passwordDigest) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Attempt that
+                    && username.equals(that.username)
+                    && MessageDigest.isEqual(passwordDigest, that.passwordDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * username.hashCode() + Arrays.hashCode(passwordDigest);
+        }
+    }
+}
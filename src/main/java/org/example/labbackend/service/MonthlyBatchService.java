@@ -0,0 +1,225 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.MonthlyStatsDTO;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.MonthlyStats;
+import org.example.labbackend.repository.MonthlyBatchRepository;
+import org.example.labbackend.repository.MonthlyStatsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Write path for monthly batches. Every create, update and delete also applies
+ * its delta to the monthly_stats rollup in the same transaction, so the stats
+ * endpoints read at most twelve rows instead of scanning monthly_batches.
+ */
+@Service
+public class MonthlyBatchService {
+
+    private final MonthlyBatchRepository monthlyBatchRepository;
+    private final MonthlyStatsRepository monthlyStatsRepository;
+    private final BatchSearchIndex batchSearchIndex;
+    private final TableVersions tableVersions;
+
+    public MonthlyBatchService(MonthlyBatchRepository monthlyBatchRepository,
+                               MonthlyStatsRepository monthlyStatsRepository,
+                               BatchSearchIndex batchSearchIndex,
+                               TableVersions tableVersions) {
+        this.monthlyBatchRepository = monthlyBatchRepository;
+        this.monthlyStatsRepository = monthlyStatsRepository;
+        this.batchSearchIndex = batchSearchIndex;
+        this.tableVersions = tableVersions;
+    }
+
+    @Transactional
+    public MonthlyBatch save(MonthlyBatch monthlyBatch) {
+        // Lock the old row, like update() does, so a concurrent write cannot make the
+        // subtracted contribution stale. Capture it before save() merges new values into it.
+        List<MonthlyBatch> existing = monthlyBatchRepository.findAllForUpdate(List.of(monthlyBatch.getBatch()));
+        StatsContribution previous = existing.isEmpty() ? null : StatsContribution.of(existing.get(0));
+        return write(previous, monthlyBatch);
+    }
+
+    @Transactional
+    public Optional<MonthlyBatch> update(String batch, MonthlyBatch monthlyBatch) {
+        // The locked row is both the existence check and the managed instance save() merges into
+        List<MonthlyBatch> existing = monthlyBatchRepository.findAllForUpdate(List.of(batch));
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        monthlyBatch.setBatch(existing.get(0).getBatch());
+        return Optional.of(write(StatsContribution.of(existing.get(0)), monthlyBatch));
+    }
+
+    /**
+     * Deletes one batch through its managed entity, so only that batch leaves the
+     * second-level cache. The JPQL DELETE in {@link #deleteAll} evicts them all.
+     */
+    @Transactional
+    public boolean delete(String batch) {
+        List<MonthlyBatch> existing = monthlyBatchRepository.findAllForUpdate(List.of(batch));
+        if (existing.isEmpty()) {
+            return false;
+        }
+        applyStatsChange(existing, List.of());
+        monthlyBatchRepository.delete(existing.get(0));
+        batchSearchIndex.remove(BatchSearchIndex.Source.BATCHES, existing.get(0).getBatch());
+        tableVersions.bump(TableVersions.Table.BATCHES);
+        return true;
+    }
+
+    /**
+     * Deletes the given batches and returns how many existed. The rows are locked
+     * and read in one query so their rollup contribution can be subtracted, then
+     * removed with a single DELETE.
+     */
+    @Transactional
+    public int deleteAll(Collection<String> batches) {
+        List<MonthlyBatch> existing = monthlyBatchRepository.findAllForUpdate(batches);
+        if (existing.isEmpty()) {
+            return 0;
+        }
+        applyStatsChange(existing, List.of());
+        int deleted = monthlyBatchRepository.deleteRows(existing.stream().map(MonthlyBatch::getBatch).toList());
+        existing.forEach(removed -> batchSearchIndex.remove(BatchSearchIndex.Source.BATCHES, removed.getBatch()));
+        tableVersions.bump(TableVersions.Table.BATCHES);
+        return deleted;
+    }
+
+    public List<MonthlyStatsDTO> getMonthlyStats(int year) {
+        return monthlyStatsRepository.findByYear(year).stream()
+                .map(MonthlyBatchService::toDto)
+                .toList();
+    }
+
+    public List<Integer> getAvailableYears() {
+        return monthlyStatsRepository.findAvailableYears();
+    }
+
+    /**
+     * Recomputes the whole rollup from monthly_batches. Runs nightly to pick up
+     * rows written outside the API, and at startup when the rollup is empty.
+     */
+    @Transactional
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuildStats() {
+        monthlyStatsRepository.deleteAllStats();
+        monthlyStatsRepository.insertAggregatedFromBatches();
+        tableVersions.bump(TableVersions.Table.BATCHES);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildStatsIfEmpty() {
+        if (monthlyStatsRepository.count() == 0) {
+            rebuildStats();
+        }
+    }
+
+    /**
+     * Applies the rollup change for batches written directly with JDBC, given what
+     * the same batches held before the write. Deltas are summed per month first,
+     * so a bulk upsert costs one statement per month touched rather than per row.
+     * Must run in the transaction that wrote the batches.
+     */
+    public void applyStatsChange(Collection<MonthlyBatch> previous, Collection<MonthlyBatch> current) {
+        Map<Integer, long[]> deltas = new TreeMap<>();
+        previous.forEach(batch -> accumulate(deltas, StatsContribution.of(batch), -1));
+        current.forEach(batch -> accumulate(deltas, StatsContribution.of(batch), 1));
+        deltas.forEach((period, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0 || delta[2] != 0 || delta[3] != 0 || delta[4] != 0) {
+                monthlyStatsRepository.applyDelta(period / 100, period % 100,
+                        delta[0], delta[1], delta[2], delta[3], delta[4]);
+            }
+        });
+    }
+
+    private static void accumulate(Map<Integer, long[]> deltas, StatsContribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        boolean released = "Yes".equalsIgnoreCase(contribution.released());
+        boolean rework = "No".equalsIgnoreCase(contribution.released());
+        long[] delta = deltas.computeIfAbsent(contribution.year() * 100 + contribution.month(), k -> new long[5]);
+        delta[0] += sign;
+        delta[1] += released ? sign : 0;
+        delta[2] += released ? sign * contribution.lbs() : 0;
+        delta[3] += rework ? sign : 0;
+        delta[4] += rework ? sign * contribution.lbs() : 0;
+    }
+
+    private MonthlyBatch write(StatsContribution previous, MonthlyBatch monthlyBatch) {
+        MonthlyBatch saved = monthlyBatchRepository.save(monthlyBatch);
+        applyContribution(previous, -1);
+        applyContribution(StatsContribution.of(saved), 1);
+        batchSearchIndex.add(BatchSearchIndex.Source.BATCHES, saved.getBatch());
+        tableVersions.bump(TableVersions.Table.BATCHES);
+        return saved;
+    }
+
+    private void applyContribution(StatsContribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        // Matches the case-insensitive comparison MySQL applies in the rebuild query
+        boolean released = "Yes".equalsIgnoreCase(contribution.released());
+        boolean rework = "No".equalsIgnoreCase(contribution.released());
+        long lbs = contribution.lbs();
+        monthlyStatsRepository.applyDelta(
+                contribution.year(),
+                contribution.month(),
+                sign,
+                released ? sign : 0,
+                released ? sign * lbs : 0,
+                rework ? sign : 0,
+                rework ? sign * lbs : 0);
+    }
+
+    static MonthlyStatsDTO toDto(MonthlyStats stats) {
+        return new MonthlyStatsDTO(
+                stats.getYear(),
+                stats.getMonth(),
+                Month.of(stats.getMonth()).getDisplayName(TextStyle.FULL, Locale.ENGLISH),
+                stats.getBatchesReleased(),
+                stats.getTotalPounds(),
+                stats.getReworkBatches(),
+                stats.getReworkPounds());
+    }
+
+    /**
+     * What one batch adds to its month in the rollup. The month and year come from
+     * the batch name: second character A-L is the month, third character is the
+     * year offset from 2020.
+     */
+    private record StatsContribution(int year, int month, String released, long lbs) {
+
+        static StatsContribution of(MonthlyBatch batch) {
+            String name = batch.getBatch();
+            if (name == null || name.length() < 3) {
+                return null;
+            }
+            char monthLetter = Character.toUpperCase(name.charAt(1));
+            char yearDigit = name.charAt(2);
+            if (monthLetter < 'A' || monthLetter > 'L' || yearDigit < '0' || yearDigit > '9') {
+                return null;
+            }
+            return new StatsContribution(
+                    2020 + (yearDigit - '0'),
+                    monthLetter - 'A' + 1,
+                    batch.getReleased(),
+                    batch.getLbs() != null ? batch.getLbs() : 0);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.repository.ProductNameRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-process copy of the product code directory (the names table). Product names
+ * change a few times a year, so lookups and searches are served from memory and
+ * the snapshot is rebuilt lazily after any write through the API.
+ */
+@Service
+public class ProductDirectory {
+
+    private final ProductNameRepository productNameRepository;
+
+    private volatile Snapshot snapshot;
+    private long generation;
+
+    public ProductDirectory(ProductNameRepository productNameRepository) {
+        this.productNameRepository = productNameRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        current();
+    }
+
+    public List<ProductName> findAll() {
+        return current().all();
+    }
+
+    public Optional<ProductName> findByCode(Integer code) {
+        return Optional.ofNullable(current().byCode().get(code));
+    }
+
+    /**
+     * Case-insensitive substring match on the product name, in code order,
+     * matching the semantics of the former LIKE '%name%' query.
+     */
+    public List<ProductName> search(String name) {
+        String needle = name.toLowerCase(Locale.ROOT);
+        return current().all().stream()
+                .filter(product -> product.getName() != null
+                        && product.getName().toLowerCase(Locale.ROOT).contains(needle))
+                .toList();
+    }
+
+    /**
+     * Autocomplete: products with a name word starting with {@code prefix}, best
+     * matches first. Falls back to typo-tolerant matching when nothing starts
+     * with the prefix.
+     */
+    public List<ProductName> autocomplete(String prefix, int limit) {
+        String needle = prefix.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = current();
+
+        // Ordered by how early in the name the matching word starts
+        Map<Integer, Integer> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, List<WordRef>> entry : current.words().subMap(needle, true, needle + Character.MAX_VALUE, false).entrySet()) {
+            for (WordRef ref : entry.getValue()) {
+                matches.merge(ref.code(), ref.position(), Math::min);
+            }
+        }
+
+        if (matches.isEmpty()) {
+            int maxDistance = needle.length() <= 4 ? 1 : 2;
+            for (Map.Entry<String, List<WordRef>> entry : current.words().entrySet()) {
+                String word = entry.getKey();
+                String candidate = word.length() > needle.length() ? word.substring(0, needle.length()) : word;
+                int distance = distance(needle, candidate, maxDistance);
+                if (distance <= maxDistance) {
+                    for (WordRef ref : entry.getValue()) {
+                        matches.merge(ref.code(), distance * 100 + ref.position(), Math::min);
+                    }
+                }
+            }
+        }
+
+        return matches.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> current.byCode().get(entry.getKey()))
+                .toList();
+    }
+
+    /**
+     * Drops the snapshot; the next read reloads it from the database.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long loadingGeneration;
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            loadingGeneration = generation;
+        }
+        Snapshot loaded = Snapshot.of(productNameRepository.findAll());
+        synchronized (this) {
+            // Only publish if no write invalidated the directory while we were loading
+            if (generation == loadingGeneration) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Optimal string alignment distance, stopping early once it exceeds {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private record WordRef(Integer code, int position) {}
+
+    private record Snapshot(List<ProductName> all, Map<Integer, ProductName> byCode,
+                            NavigableMap<String, List<WordRef>> words) {
+
+        static Snapshot of(List<ProductName> products) {
+            List<ProductName> all = new ArrayList<>(products);
+            all.sort(Comparator.comparing(ProductName::getCode, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            Map<Integer, ProductName> byCode = new LinkedHashMap<>();
+            NavigableMap<String, List<WordRef>> words = new TreeMap<>();
+            for (ProductName product : all) {
+                byCode.put(product.getCode(), product);
+                if (product.getName() == null) {
+                    continue;
+                }
+                Set<String> seen = new HashSet<>();
+                String[] tokens = product.getName().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+                int position = 0;
+                for (String token : tokens) {
+                    if (token.isEmpty()) {
+                        continue;
+                    }
+                    if (seen.add(token)) {
+                        words.computeIfAbsent(token, t -> new ArrayList<>()).add(new WordRef(product.getCode(), position));
+                    }
+                    position++;
+                }
+            }
+            return new Snapshot(List.copyOf(all), byCode, words);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.labbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.repository.ReminderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fires each pending reminder at its due instant. Pending reminders are held in
+ * a {@link DelayQueue} drained by one virtual thread, loaded from the database at
+ * startup and kept current by the write paths calling {@link #schedule} and
+ * {@link #cancel}.
+ *
+ * Reminders that come due together, such as the backlog of overdue ones at
+ * startup, are handed to the handler as one set of up to {@value #MAX_FIRE_BATCH}
+ * ids, so they are read and marked notified in one statement each.
+ *
+ * The handler re-reads the reminders before acting, so a stale entry (deleted or
+ * already notified) is harmless. A reconciliation sweep every few hours reloads
+ * the pending set to pick up rows written outside the API or missed while the
+ * handler was failing.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final int MAX_FIRE_BATCH = 500;
+
+    private final ReminderRepository reminderRepository;
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+    // Latest entry per reminder id; queued entries that no longer match are skipped
+    private final Map<Long, Entry> scheduled = new ConcurrentHashMap<>();
+
+    private volatile Consumer<List<Long>> handler;
+    private Thread worker;
+
+    public ReminderScheduler(ReminderRepository reminderRepository) {
+        this.reminderRepository = reminderRepository;
+    }
+
+    /**
+     * Sets what runs when reminders come due. Called with the ids of every
+     * reminder whose due instant has passed.
+     */
+    public void onDue(Consumer<List<Long>> handler) {
+        this.handler = handler;
+    }
+
+    public void schedule(Reminder reminder) {
+        if (reminder.getId() == null || reminder.getDue() == null || Boolean.TRUE.equals(reminder.getNotified())) {
+            return;
+        }
+        Entry entry = new Entry(reminder.getId(), reminder.getDue());
+        if (!entry.equals(scheduled.put(entry.id(), entry))) {
+            queue.add(entry);
+        }
+    }
+
+    public void cancel(Long id) {
+        scheduled.remove(id);
+    }
+
+    public void cancelAll(Iterable<Long> ids) {
+        ids.forEach(scheduled::remove);
+    }
+
+    public int pendingCount() {
+        return scheduled.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        reconcile();
+        worker = Thread.ofVirtual().name("reminder-scheduler").start(this::run);
+    }
+
+    /**
+     * Schedules every pending reminder in the database. Entries for reminders that
+     * are no longer pending are left to fire and be skipped by the handler, so a
+     * reminder scheduled while the sweep runs is never dropped.
+     */
+    @Scheduled(fixedDelayString = "${reminders.reconcile.interval:PT6H}",
+            initialDelayString = "${reminders.reconcile.interval:PT6H}")
+    public void reconcile() {
+        try {
+            reminderRepository.findByNotifiedFalse().forEach(this::schedule);
+        } catch (Exception e) {
+            System.err.println("Reminder reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        List<Entry> expired = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            expired.clear();
+            try {
+                expired.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // drainTo only takes entries that have already expired
+            queue.drainTo(expired, MAX_FIRE_BATCH - 1);
+            List<Long> ids = new ArrayList<>(expired.size());
+            for (Entry entry : expired) {
+                if (scheduled.remove(entry.id(), entry)) {
+                    ids.add(entry.id());
+                }
+            }
+            Consumer<List<Long>> current = handler;
+            if (ids.isEmpty() || current == null) {
+                continue;
+            }
+            try {
+                current.accept(ids);
+            } catch (Exception e) {
+                // Still pending in the database, so the next reconciliation retries them
+                System.err.println("Failed to fire reminders " + ids + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private record Entry(Long id, Instant due) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), due));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return due.compareTo(((Entry) other).due);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.labbackend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.labbackend.config.HibernateCacheConfig;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Eviction and statistics for Hibernate's second-level and query cache.
+ *
+ * Saves and JPQL bulk statements go through Hibernate, which keeps the cache in
+ * step by itself. Writes that bypass it (the JDBC upserts and backfills) have to
+ * evict what they touched here.
+ */
+@Service
+public class SecondLevelCache {
+
+    private static final String[] REGIONS = {
+            HibernateCacheConfig.BATCHES_REGION,
+            HibernateCacheConfig.QC_REGION,
+            HibernateCacheConfig.PRODUCTS_REGION,
+            HibernateCacheConfig.QUERY_RESULTS_REGION
+    };
+
+    private final SessionFactory sessionFactory;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Drops every cached {@code entityClass} and all cached query results. Inside
+     * a transaction the eviction is repeated after commit, so a concurrent read
+     * that cached the old row in between does not outlive the write.
+     */
+    public void evict(Class<?> entityClass) {
+        evictNow(entityClass);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(entityClass);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    public Map<String, Object> statistics() {
+        Statistics stats = sessionFactory.getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", stats.isStatisticsEnabled());
+        result.put("entities", counts(stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(), stats.getSecondLevelCachePutCount()));
+        result.put("queries", counts(stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(region);
+            if (regionStats != null) {
+                regions.put(region, counts(regionStats.getHitCount(),
+                        regionStats.getMissCount(), regionStats.getPutCount()));
+            }
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    private void evictNow(Class<?> entityClass) {
+        sessionFactory.getCache().evictEntityData(entityClass);
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    private static Map<String, Object> counts(long hits, long misses, long puts) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        counts.put("hitRatio", hits + misses == 0 ? null : (double) hits / (hits + misses));
+        return counts;
+    }
+}
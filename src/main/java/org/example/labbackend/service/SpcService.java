@@ -0,0 +1,328 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.SpcReport;
+import org.example.labbackend.dto.SpcReport.IndividualsChart;
+import org.example.labbackend.dto.SpcReport.Limits;
+import org.example.labbackend.dto.SpcReport.Point;
+import org.example.labbackend.dto.SpcReport.Subgroup;
+import org.example.labbackend.dto.SpcReport.Summary;
+import org.example.labbackend.dto.SpcReport.UnitCount;
+import org.example.labbackend.dto.SpcReport.Violation;
+import org.example.labbackend.dto.SpcReport.XBarRChart;
+import org.example.labbackend.model.Measurement;
+import org.example.labbackend.repository.TestingMeasurementRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Individuals/moving-range and X-bar/R control charts for one measurement of one
+ * product code, with Western Electric rule checks.
+ *
+ * The parsed values are read in test order through a forward-only cursor and
+ * every statistic is updated as each value arrives. Control limits come from
+ * the first {@code baseline} points (or subgroups); only those are held back
+ * until the limits are known, after which each value is checked and emitted
+ * immediately.
+ *
+ * Values in different units cannot share a chart, so one unit is charted at a
+ * time: the one asked for, or else the most common. Counts of the values left out
+ * are reported with the chart.
+ */
+@Service
+public class SpcService {
+
+    public static final int MIN_SUBGROUP_SIZE = 2;
+    public static final int MAX_SUBGROUP_SIZE = 10;
+
+    // Shewhart constants indexed by subgroup size
+    private static final double[] A2 = {0, 0, 1.880, 1.023, 0.729, 0.577, 0.483, 0.419, 0.373, 0.337, 0.308};
+    private static final double[] D3 = {0, 0, 0, 0, 0, 0, 0, 0.076, 0.136, 0.184, 0.223};
+    private static final double[] D4 = {0, 0, 3.267, 2.574, 2.282, 2.114, 2.004, 1.924, 1.864, 1.816, 1.777};
+    private static final double D2_PAIRS = 1.128;
+
+    private final TestingMeasurementRepository testingMeasurementRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public SpcService(TestingMeasurementRepository testingMeasurementRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.testingMeasurementRepository = testingMeasurementRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param unit the unit to chart, or null for the most common one
+     * @throws IllegalArgumentException if {@code subgroupSize} is outside 2-10 or
+     *                                  {@code baseline} is below 2
+     */
+    public SpcReport analyze(Measurement measurement, String code, String unit, LocalDate start, LocalDate end,
+                             int subgroupSize, int baseline) {
+        if (subgroupSize < MIN_SUBGROUP_SIZE || subgroupSize > MAX_SUBGROUP_SIZE) {
+            throw new IllegalArgumentException("Subgroup size must be between 2 and 10");
+        }
+        if (baseline < 2) {
+            throw new IllegalArgumentException("Baseline must be at least 2");
+        }
+
+        RunningStats stats = new RunningStats();
+        IndividualsBuilder individuals = new IndividualsBuilder(baseline);
+        XBarRBuilder xbarR = new XBarRBuilder(subgroupSize, baseline);
+        List<UnitCount> otherUnits = new ArrayList<>();
+
+        String chartUnit = readOnlyTransaction.execute(status -> {
+            List<UnitCount> units = testingMeasurementRepository.countUnits(measurement, code, start, end).stream()
+                    .map(row -> new UnitCount((String) row[0], ((Number) row[1]).longValue()))
+                    .toList();
+            String selected = unit != null || units.isEmpty() ? unit : units.getFirst().unit();
+            units.stream()
+                    .filter(count -> selected == null ? count.unit() != null : !selected.equalsIgnoreCase(count.unit()))
+                    .forEach(otherUnits::add);
+
+            try (Stream<Object[]> rows = testingMeasurementRepository.streamValues(measurement, code, selected, start, end)) {
+                rows.forEach(row -> {
+                    Long testingId = (Long) row[0];
+                    LocalDate date = (LocalDate) row[1];
+                    double value = ((Number) row[2]).doubleValue();
+                    stats.add(value);
+                    individuals.add(testingId, date, value);
+                    xbarR.add(date, value);
+                });
+            }
+            return selected;
+        });
+
+        return new SpcReport(code, measurement.property(), chartUnit, otherUnits, start, end,
+                stats.summary(), individuals.finish(), xbarR.finish());
+    }
+
+    /**
+     * Welford's online mean and variance.
+     */
+    private static final class RunningStats {
+        private long count;
+        private double mean;
+        private double m2;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        Summary summary() {
+            if (count == 0) {
+                return new Summary(0, null, null, null, null);
+            }
+            Double stdDev = count > 1 ? Math.sqrt(m2 / (count - 1)) : null;
+            return new Summary(count, mean, stdDev, min, max);
+        }
+    }
+
+    /**
+     * Western Electric rules over the most recent points, as z-scores against the
+     * chart's center line and sigma.
+     */
+    static final class RuleChecker {
+        private final double center;
+        private final double sigma;
+        private final Deque<Double> recent = new ArrayDeque<>(8);
+
+        RuleChecker(double center, double sigma) {
+            this.center = center;
+            this.sigma = sigma;
+        }
+
+        void check(int index, LocalDate date, double value, List<Violation> violations) {
+            if (sigma <= 0) {
+                return;
+            }
+            double z = (value - center) / sigma;
+            recent.addFirst(z);
+            if (recent.size() > 8) {
+                recent.removeLast();
+            }
+            if (Math.abs(z) > 3) {
+                violations.add(new Violation(index, date, 1, "Beyond 3 sigma"));
+            }
+            if (Math.abs(z) > 2 && countBeyond(3, 2, Math.signum(z)) >= 2) {
+                violations.add(new Violation(index, date, 2, "2 of 3 beyond 2 sigma on one side"));
+            }
+            if (Math.abs(z) > 1 && countBeyond(5, 1, Math.signum(z)) >= 4) {
+                violations.add(new Violation(index, date, 3, "4 of 5 beyond 1 sigma on one side"));
+            }
+            if (z != 0 && recent.size() == 8 && countBeyond(8, 0, Math.signum(z)) == 8) {
+                violations.add(new Violation(index, date, 4, "8 in a row on one side of the center"));
+            }
+        }
+
+        private int countBeyond(int window, double limit, double side) {
+            int count = 0;
+            int seen = 0;
+            for (double z : recent) {
+                if (seen++ == window) {
+                    break;
+                }
+                if (z * side > limit) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static final class IndividualsBuilder {
+        private final int baseline;
+        private final List<Point> points = new ArrayList<>();
+        private final List<Violation> violations = new ArrayList<>();
+        private double previous = Double.NaN;
+        private double baselineSum;
+        private double baselineMovingRangeSum;
+        private int baselineCount;
+        private Limits values;
+        private Limits movingRange;
+        private RuleChecker rules;
+
+        IndividualsBuilder(int baseline) {
+            this.baseline = baseline;
+        }
+
+        void add(Long testingId, LocalDate date, double value) {
+            Double mr = Double.isNaN(previous) ? null : Math.abs(value - previous);
+            previous = value;
+            Point point = new Point(testingId, date, value, mr);
+            points.add(point);
+
+            if (rules != null) {
+                check(points.size() - 1, point);
+                return;
+            }
+            baselineCount++;
+            baselineSum += value;
+            if (mr != null) {
+                baselineMovingRangeSum += mr;
+            }
+            if (baselineCount == baseline) {
+                fixLimits();
+            }
+        }
+
+        IndividualsChart finish() {
+            if (rules == null && baselineCount >= 2) {
+                // Fewer points than the baseline asks for; use them all
+                fixLimits();
+            }
+            return new IndividualsChart(baselineCount, values, movingRange, points, violations);
+        }
+
+        private void fixLimits() {
+            double center = baselineSum / baselineCount;
+            double mrBar = baselineMovingRangeSum / (baselineCount - 1);
+            double sigma = mrBar / D2_PAIRS;
+            values = new Limits(center, center - 3 * sigma, center + 3 * sigma);
+            movingRange = new Limits(mrBar, 0, D4[2] * mrBar);
+            rules = new RuleChecker(center, sigma);
+            for (int i = 0; i < points.size(); i++) {
+                check(i, points.get(i));
+            }
+        }
+
+        private void check(int index, Point point) {
+            rules.check(index, point.date(), point.value(), violations);
+            if (point.movingRange() != null && point.movingRange() > movingRange.upper()) {
+                violations.add(new Violation(index, point.date(), 1, "Moving range above its upper limit"));
+            }
+        }
+    }
+
+    private static final class XBarRBuilder {
+        private final int size;
+        private final int baseline;
+        private final List<Subgroup> subgroups = new ArrayList<>();
+        private final List<Violation> violations = new ArrayList<>();
+        private int filled;
+        private double sum;
+        private double low;
+        private double high;
+        private LocalDate firstDate;
+        private double baselineMeanSum;
+        private double baselineRangeSum;
+        private Limits means;
+        private Limits ranges;
+        private RuleChecker rules;
+
+        XBarRBuilder(int size, int baseline) {
+            this.size = size;
+            this.baseline = baseline;
+        }
+
+        void add(LocalDate date, double value) {
+            if (filled == 0) {
+                firstDate = date;
+                low = value;
+                high = value;
+                sum = 0;
+            }
+            filled++;
+            sum += value;
+            low = Math.min(low, value);
+            high = Math.max(high, value);
+            if (filled < size) {
+                return;
+            }
+
+            // Consecutive tests form a subgroup; a trailing partial subgroup is left out
+            Subgroup subgroup = new Subgroup(subgroups.size(), firstDate, date, sum / size, high - low);
+            filled = 0;
+            subgroups.add(subgroup);
+            if (rules != null) {
+                check(subgroup);
+                return;
+            }
+            baselineMeanSum += subgroup.mean();
+            baselineRangeSum += subgroup.range();
+            if (subgroups.size() == baseline) {
+                fixLimits();
+            }
+        }
+
+        XBarRChart finish() {
+            if (subgroups.isEmpty()) {
+                return null;
+            }
+            if (rules == null) {
+                fixLimits();
+            }
+            return new XBarRChart(size, Math.min(subgroups.size(), baseline), means, ranges, subgroups, violations);
+        }
+
+        private void fixLimits() {
+            int count = subgroups.size();
+            double grandMean = baselineMeanSum / count;
+            double rBar = baselineRangeSum / count;
+            means = new Limits(grandMean, grandMean - A2[size] * rBar, grandMean + A2[size] * rBar);
+            ranges = new Limits(rBar, D3[size] * rBar, D4[size] * rBar);
+            rules = new RuleChecker(grandMean, A2[size] * rBar / 3);
+            subgroups.forEach(this::check);
+        }
+
+        private void check(Subgroup subgroup) {
+            rules.check(subgroup.index(), subgroup.lastDate(), subgroup.mean(), violations);
+            if (subgroup.range() > ranges.upper() || subgroup.range() < ranges.lower()) {
+                violations.add(new Violation(subgroup.index(), subgroup.lastDate(), 1, "Range outside its control limits"));
+            }
+        }
+    }
+}
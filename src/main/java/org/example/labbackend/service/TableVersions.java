@@ -0,0 +1,93 @@
+package org.example.labbackend.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter per table, used to answer conditional GETs without querying.
+ * Every write bumps the counter of the tables it touched; a GET whose tables are
+ * all still at the versions the client saw can be answered with 304.
+ *
+ * Counters live in memory and restart with the application, so the ETag also
+ * carries the startup time to keep tags from a previous run from matching.
+ */
+@Service
+public class TableVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+    private final Map<Table, Instant> modified = new EnumMap<>(Table.class);
+
+    public TableVersions() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+            modified.put(table, now);
+        }
+    }
+
+    /**
+     * Marks {@code table} as changed. Inside a transaction the bump is deferred
+     * until commit, so a reader can never pair the new version with old rows.
+     */
+    public void bump(Table table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(table);
+                }
+            });
+        } else {
+            increment(table);
+        }
+    }
+
+    /**
+     * Strong ETag for a response built from {@code tables}.
+     */
+    public String etag(Collection<Table> tables) {
+        StringBuilder tag = new StringBuilder("\"").append(epoch);
+        for (Table table : tables) {
+            tag.append('-').append(versions.get(table).get());
+        }
+        return tag.append('"').toString();
+    }
+
+    public Instant lastModified(Collection<Table> tables) {
+        Instant latest = Instant.EPOCH;
+        synchronized (modified) {
+            for (Table table : tables) {
+                Instant changed = modified.get(table);
+                if (changed.isAfter(latest)) {
+                    latest = changed;
+                }
+            }
+        }
+        return latest;
+    }
+
+    private void increment(Table table) {
+        synchronized (modified) {
+            modified.put(table, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+        versions.get(table).incrementAndGet();
+    }
+
+    public enum Table {
+        BATCHES,
+        QC,
+        TESTING,
+        RETAINS,
+        REMINDERS,
+        PRODUCTS
+    }
+}
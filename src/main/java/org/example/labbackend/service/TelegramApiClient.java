@@ -0,0 +1,147 @@
+package org.example.labbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thin HTTP client for the Telegram Bot API. The base URL is configurable
+ * ({@code telegram.api.base-url}) so the bot can be pointed at a local stub
+ * server. Socket timeouts leave room for long-polling getUpdates calls.
+ */
+@Service
+public class TelegramApiClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final String botToken;
+
+    public TelegramApiClient(
+            @Value("${telegram.api.base-url:https://api.telegram.org}") String baseUrl,
+            @Value("${telegram.bot.token:}") String botToken,
+            @Value("${telegram.polling.timeout:50}") int pollTimeoutSeconds) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.botToken = botToken;
+        // A long poll may legitimately sit silent for the whole poll timeout
+        this.restTemplate = createRestTemplateWithTrustAllCerts(Timeout.ofSeconds(pollTimeoutSeconds + 20L));
+        this.objectMapper = new ObjectMapper();
+    }
+
+    private static RestTemplate createRestTemplateWithTrustAllCerts(Timeout socketTimeout) {
+        try {
+            SSLContext sslContext = SSLContextBuilder.create()
+                    .loadTrustMaterial(null, TrustAllStrategy.INSTANCE)
+                    .build();
+
+            CloseableHttpClient httpClient = HttpClients.custom()
+                    .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                            .setTlsSocketStrategy(new DefaultClientTlsStrategy(sslContext, NoopHostnameVerifier.INSTANCE))
+                            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                    .setConnectTimeout(Timeout.ofSeconds(10))
+                                    .setSocketTimeout(socketTimeout)
+                                    .build())
+                            .build())
+                    .build();
+
+            HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+            return new RestTemplate(factory);
+        } catch (Exception e) {
+            System.err.println("Failed to create SSL-bypassing RestTemplate, using default: " + e.getMessage());
+            return new RestTemplate();
+        }
+    }
+
+    public boolean isConfigured() {
+        return botToken != null && !botToken.isEmpty();
+    }
+
+    /**
+     * The bot's numeric id, which is the public part of its token.
+     */
+    public String botId() {
+        int colon = botToken.indexOf(':');
+        return colon > 0 ? botToken.substring(0, colon) : "default";
+    }
+
+    public void sendMessage(String chatId, String text) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        Map<String, String> body = new HashMap<>();
+        body.put("chat_id", chatId);
+        body.put("text", text);
+        body.put("parse_mode", "Markdown");
+
+        restTemplate.postForObject(url("sendMessage"), new HttpEntity<>(body, headers), String.class);
+    }
+
+    /**
+     * Long-polls for updates after {@code offset - 1}, waiting up to
+     * {@code timeoutSeconds} for one to arrive. Calling this with a higher offset
+     * confirms every earlier update to Telegram.
+     *
+     * @throws IllegalStateException if Telegram answers with {@code ok: false}
+     */
+    public List<Map<String, Object>> getUpdates(long offset, int timeoutSeconds) throws Exception {
+        String response = restTemplate.getForObject(
+                url("getUpdates") + "?offset=" + offset + "&timeout=" + timeoutSeconds, String.class);
+        return parseUpdates(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> parseUpdates(String response) throws Exception {
+        if (response == null) {
+            return List.of();
+        }
+        Map<String, Object> parsed = objectMapper.readValue(response, Map.class);
+        if (!Boolean.TRUE.equals(parsed.get("ok"))) {
+            throw new IllegalStateException("getUpdates failed: " + parsed.get("description"));
+        }
+        List<Map<String, Object>> updates = (List<Map<String, Object>>) parsed.get("result");
+        return updates != null ? updates : List.of();
+    }
+
+    /**
+     * How long Telegram asked us to wait, from the {@code parameters.retry_after}
+     * of a 429 response. Falls back to a few seconds if it is missing.
+     */
+    @SuppressWarnings("unchecked")
+    public Duration retryAfter(RestClientResponseException e) {
+        try {
+            Map<String, Object> body = objectMapper.readValue(e.getResponseBodyAsString(), Map.class);
+            Map<String, Object> parameters = (Map<String, Object>) body.get("parameters");
+            if (parameters != null && parameters.get("retry_after") instanceof Number seconds) {
+                return Duration.ofSeconds(seconds.longValue());
+            }
+        } catch (Exception ignored) {
+            // Fall through to the default
+        }
+        return Duration.ofSeconds(5);
+    }
+
+    private String url(String method) {
+        return baseUrl + "/bot" + botToken + "/" + method;
+    }
+}
@@ -1,76 +1,79 @@
 package org.example.labbackend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
-import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.client5.http.ssl.TrustAllStrategy;
-import org.apache.hc.core5.ssl.SSLContextBuilder;
+import jakarta.annotation.PostConstruct;
+import org.example.labbackend.model.BatchCode;
 import org.example.labbackend.model.Reminder;
 import org.example.labbackend.repository.ReminderRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import javax.net.ssl.SSLContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class TelegramBotService {
 
     private final ReminderRepository reminderRepository;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-    private final String botToken;
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchSearchIndex batchSearchIndex;
+    private final TableVersions tableVersions;
+    private final ReminderScheduler reminderScheduler;
+    private final TelegramApiClient telegramApiClient;
+    private final TelegramOutbox telegramOutbox;
     private final String chatId;
-    private long lastUpdateId = 0;
 
-    private static final String TELEGRAM_API_BASE = "https://api.telegram.org/bot%s/%s";
     private static final String[] INTERVALS = {"48h", "7d", "3m", "1y"};
-    private static final Pattern BATCH_PATTERN = Pattern.compile("^([A-Z]{2}\\d{4}[A-Z]?)(?:,(-?\\d+))?$");
+    private static final String BATCH_ID = "[A-Z]{2}\\d{4}[A-Z]?";
+    private static final Pattern BATCH_ID_PATTERN = Pattern.compile(BATCH_ID);
+    private static final Pattern BATCH_PATTERN = Pattern.compile("^(" + BATCH_ID + ")(?:,(-?\\d{1,4}))?$");
+
+    // reminder_id is unique, so intervals a batch already has are skipped by the database
+    private static final String INSERT_REMINDER_SQL = """
+        INSERT IGNORE INTO reminders
+            (reminder_id, batch, interval_type, due, notified, created_at,
+             batch_plant, batch_year, batch_month, batch_seq, batch_suffix)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
 
     public TelegramBotService(
             ReminderRepository reminderRepository,
-            @Value("${telegram.bot.token:}") String botToken,
+            JdbcTemplate jdbcTemplate,
+            BatchSearchIndex batchSearchIndex,
+            TableVersions tableVersions,
+            ReminderScheduler reminderScheduler,
+            TelegramApiClient telegramApiClient,
+            TelegramOutbox telegramOutbox,
             @Value("${telegram.chat.id:}") String chatId) {
         this.reminderRepository = reminderRepository;
-        this.botToken = botToken;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSearchIndex = batchSearchIndex;
+        this.tableVersions = tableVersions;
+        this.reminderScheduler = reminderScheduler;
+        this.telegramApiClient = telegramApiClient;
+        this.telegramOutbox = telegramOutbox;
         this.chatId = chatId;
-        this.restTemplate = createRestTemplateWithTrustAllCerts();
-        this.objectMapper = new ObjectMapper();
     }
 
-    private RestTemplate createRestTemplateWithTrustAllCerts() {
-        try {
-            SSLContext sslContext = SSLContextBuilder.create()
-                    .loadTrustMaterial(null, TrustAllStrategy.INSTANCE)
-                    .build();
-
-            CloseableHttpClient httpClient = HttpClients.custom()
-                    .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
-                            .setTlsSocketStrategy(new DefaultClientTlsStrategy(sslContext, NoopHostnameVerifier.INSTANCE))
-                            .build())
-                    .build();
-
-            HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
-            return new RestTemplate(factory);
-        } catch (Exception e) {
-            System.err.println("Failed to create SSL-bypassing RestTemplate, using default: " + e.getMessage());
-            return new RestTemplate();
-        }
+    @PostConstruct
+    public void registerReminderHandler() {
+        reminderScheduler.onDue(this::notifyDue);
+        telegramOutbox.onRemindersDelivered(this::markNotified);
     }
 
     public void sendMessage(String text) {
@@ -80,126 +83,145 @@ public class TelegramBotService {
         sendMessageToChat(chatId, text);
     }
 
+    /**
+     * Queues a message for {@link TelegramOutbox}; never blocks on Telegram.
+     */
     public void sendMessageToChat(String targetChatId, String text) {
-        if (botToken == null || botToken.isEmpty()) {
+        if (!telegramApiClient.isConfigured()) {
             System.err.println("Telegram bot token not configured");
             return;
         }
-
-        try {
-            String url = String.format(TELEGRAM_API_BASE, botToken, "sendMessage");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String, String> body = new HashMap<>();
-            body.put("chat_id", targetChatId);
-            body.put("text", text);
-            body.put("parse_mode", "Markdown");
-
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
-            restTemplate.postForObject(url, request, String.class);
-
-            System.out.println("Telegram message sent successfully");
-        } catch (Exception e) {
-            System.err.println("Failed to send Telegram message: " + e.getMessage());
-        }
+        telegramOutbox.enqueue(targetChatId, text);
     }
 
-    @Scheduled(fixedRate = 5000)
-    public void pollForMessages() {
-        if (botToken == null || botToken.isEmpty()) {
-            return;
-        }
-
-        try {
-            String url = String.format(TELEGRAM_API_BASE, botToken, "getUpdates") +
-                    "?offset=" + (lastUpdateId + 1) + "&timeout=1";
-
-            String response = restTemplate.getForObject(url, String.class);
-            if (response == null) return;
-
-            processUpdates(response);
-        } catch (Exception e) {
-            // Silently ignore polling errors to avoid log spam
+    /**
+     * Sends to the configured chat right away, bypassing the outbox, and throws if
+     * Telegram rejects it. Only for the connection test.
+     */
+    public void sendMessageNow(String text) {
+        if (!telegramApiClient.isConfigured() || chatId == null || chatId.isEmpty()) {
+            throw new IllegalStateException("Telegram bot token or chat id not configured");
         }
+        telegramApiClient.sendMessage(chatId, text);
     }
 
-    @SuppressWarnings("unchecked")
-    private void processUpdates(String jsonResponse) {
-        try {
-            Map<String, Object> response = objectMapper.readValue(jsonResponse, Map.class);
+    /**
+     * Handles one update from {@link TelegramUpdatePoller}: a batch identifier sent
+     * to the bot creates that batch's reminders.
+     */
+    public void handleUpdate(Map<String, Object> update) {
+        BatchCommand command = parseBatchCommand(update);
+        if (command == null) return;
 
-            if (!Boolean.TRUE.equals(response.get("ok"))) return;
+        addBatchReminders(command.batch(), command.dayOffset());
 
-            List<Map<String, Object>> updates = (List<Map<String, Object>>) response.get("result");
-            if (updates == null || updates.isEmpty()) return;
+        String responseMessage = command.dayOffset() == 0
+                ? "Batch *" + command.batch() + "* added!"
+                : "Batch *" + command.batch() + "* added with *" + command.dayOffset() + " day* offset!";
 
-            for (Map<String, Object> update : updates) {
-                processUpdate(update);
-            }
-        } catch (Exception e) {
-            System.err.println("Error processing Telegram updates: " + e.getMessage());
-        }
+        sendMessageToChat(command.chatId(), responseMessage);
     }
 
+    /**
+     * The batch command in an update's message text ({@code NA6102} or
+     * {@code NA6102,-2}), or {@code null} if the update is anything else.
+     */
     @SuppressWarnings("unchecked")
-    private void processUpdate(Map<String, Object> update) {
-        long updateId = ((Number) update.get("update_id")).longValue();
-        lastUpdateId = Math.max(lastUpdateId, updateId);
-
+    static BatchCommand parseBatchCommand(Map<String, Object> update) {
         Map<String, Object> message = (Map<String, Object>) update.get("message");
-        if (message == null) return;
+        if (message == null) return null;
 
         String text = (String) message.get("text");
-        if (text == null) return;
+        if (text == null) return null;
 
         Map<String, Object> chat = (Map<String, Object>) message.get("chat");
-        if (chat == null) return;
+        if (chat == null) return null;
 
-        String messageChatId = String.valueOf(((Number) chat.get("id")).longValue());
+        if (!(chat.get("id") instanceof Number chatId)) return null;
+        String messageChatId = String.valueOf(chatId.longValue());
 
         String upperText = text.trim().toUpperCase();
         Matcher matcher = BATCH_PATTERN.matcher(upperText);
-        if (matcher.matches()) {
-            String batch = matcher.group(1);
-            int dayOffset = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
-
-            addBatchReminders(batch, dayOffset);
+        if (!matcher.matches()) return null;
 
-            String responseMessage = dayOffset == 0
-                    ? "Batch *" + batch + "* added!"
-                    : "Batch *" + batch + "* added with *" + dayOffset + " day* offset!";
+        String batch = matcher.group(1);
+        int dayOffset = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+        return new BatchCommand(messageChatId, batch, dayOffset);
+    }
 
-            sendMessageToChat(messageChatId, responseMessage);
-        }
+    /**
+     * Whether {@code batch} is a batch identifier the bot would accept, such as
+     * {@code NA6102} or {@code NA6102B}. Expects upper case.
+     */
+    public static boolean isBatchId(String batch) {
+        return batch != null && BATCH_ID_PATTERN.matcher(batch).matches();
     }
 
     public void addBatchReminders(String batch, int dayOffset) {
-        Instant baseTime = Instant.now()
+        addBatchReminders(Map.of(batch, dayOffset));
+    }
+
+    /**
+     * Creates the reminders for every interval of each batch, keyed by batch with
+     * its day offset. One SELECT finds the intervals that already exist, and the
+     * rest go to MySQL as one batched INSERT IGNORE. Only the rows that were
+     * missing are added to batch search, which counts reminder rows per batch.
+     *
+     * @return the interval reminders of these batches, including ones that already existed
+     */
+    public List<Reminder> addBatchReminders(Map<String, Integer> dayOffsets) {
+        if (dayOffsets.isEmpty()) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        Instant baseTime = now
                 .truncatedTo(ChronoUnit.DAYS)
                 .plus(19, ChronoUnit.HOURS);
 
-        for (String interval : INTERVALS) {
-            String reminderId = batch + "-" + interval;
-
-            if (reminderRepository.existsByReminderId(reminderId)) {
-                continue;
+        List<Reminder> rows = new ArrayList<>(dayOffsets.size() * INTERVALS.length);
+        dayOffsets.forEach((batch, dayOffset) -> {
+            for (String interval : INTERVALS) {
+                rows.add(Reminder.builder()
+                        .reminderId(batch + "-" + interval)
+                        .batch(batch)
+                        .intervalType(interval)
+                        .due(calculateDueDate(baseTime, interval, dayOffset))
+                        .notified(false)
+                        .createdAt(now)
+                        .build());
             }
-
-            Instant dueDate = calculateDueDate(baseTime, interval, dayOffset);
-
-            Reminder reminder = Reminder.builder()
-                    .reminderId(reminderId)
-                    .batch(batch)
-                    .intervalType(interval)
-                    .due(dueDate)
-                    .notified(false)
-                    .createdAt(Instant.now())
-                    .build();
-
-            reminderRepository.save(reminder);
+        });
+
+        // Batched inserts are rewritten into multi-row INSERTs, which report no per-row
+        // counts, so what already exists is read first
+        List<Reminder> saved = new ArrayList<>(reminderRepository.findByReminderIdIn(
+                rows.stream().map(Reminder::getReminderId).toList()));
+        Set<String> existing = saved.stream().map(Reminder::getReminderId).collect(Collectors.toSet());
+        List<Reminder> missing = rows.stream().filter(row -> !existing.contains(row.getReminderId())).toList();
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_REMINDER_SQL, missing, missing.size(), TelegramBotService::bindReminder);
+            // One SELECT for the generated ids, which the scheduler needs. INSERT IGNORE still
+            // skips a row another request inserted in between; the rebuild corrects its count.
+            List<Reminder> inserted = reminderRepository.findByReminderIdIn(
+                    missing.stream().map(Reminder::getReminderId).toList());
+            inserted.forEach(row -> batchSearchIndex.add(BatchSearchIndex.Source.REMINDERS, row.getBatch()));
+            saved.addAll(inserted);
+            tableVersions.bump(TableVersions.Table.REMINDERS);
         }
+        saved.forEach(reminderScheduler::schedule);
+        return saved;
+    }
+
+    private static void bindReminder(PreparedStatement ps, Reminder row) throws SQLException {
+        // Bound in UTC like Hibernate binds Instant, so JPA reads the same instant back
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+        ps.setObject(1, row.getReminderId());
+        ps.setObject(2, row.getBatch());
+        ps.setObject(3, row.getIntervalType());
+        ps.setTimestamp(4, Timestamp.from(row.getDue()), utc);
+        ps.setObject(5, row.getNotified());
+        ps.setTimestamp(6, Timestamp.from(row.getCreatedAt()), utc);
+        BatchCode.bind(ps, 7, row.getBatch());
     }
 
     public Instant calculateDueDate(Instant baseTime, String interval, int dayOffset) {
@@ -217,22 +239,49 @@ public class TelegramBotService {
         return dueDate;
     }
 
-    @Scheduled(fixedRate = 30 * 60 * 1000)
-    public void checkDueReminders() {
-        List<Reminder> dueReminders = reminderRepository.findByNotifiedFalseAndDueBefore(Instant.now());
-
-        for (Reminder reminder : dueReminders) {
-            String message = "Batch " + reminder.getBatch() + " - " + reminder.getIntervalType() + " check is due!";
-            sendMessage(message);
+    /**
+     * Called by {@link ReminderScheduler} with every reminder whose due instant has
+     * passed. Re-reads the rows in one query, so reminders deleted or notified since
+     * they were scheduled are skipped, and queues the rest. They are marked notified
+     * once their message is delivered, or right away when Telegram is not configured.
+     */
+    public void notifyDue(Collection<Long> ids) {
+        Instant now = Instant.now();
+        boolean sending = telegramApiClient.isConfigured() && chatId != null && !chatId.isEmpty();
+        List<Long> unsent = new ArrayList<>();
+        for (Reminder reminder : reminderRepository.findAllById(ids)) {
+            if (Boolean.TRUE.equals(reminder.getNotified())) {
+                continue;
+            }
+            if (reminder.getDue().isAfter(now)) {
+                // Moved later since it was scheduled
+                reminderScheduler.schedule(reminder);
+                continue;
+            }
+            if (sending) {
+                String line = "Batch " + reminder.getBatch() + " - " + reminder.getIntervalType();
+                telegramOutbox.enqueueReminder(chatId, line + " check is due!", line, reminder.getId());
+            } else {
+                unsent.add(reminder.getId());
+            }
+        }
+        markNotified(unsent);
+    }
 
-            reminder.setNotified(true);
-            reminderRepository.save(reminder);
+    private void markNotified(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
         }
+        reminderRepository.markNotified(ids);
+        tableVersions.bump(TableVersions.Table.REMINDERS);
     }
 
     @Scheduled(cron = "0 0 3 * * ?")
     public void cleanupNotifiedReminders() {
-        reminderRepository.deleteAllNotified();
+        reminderRepository.deleteNotifiedReturningBatches()
+                .forEach(batch -> batchSearchIndex.remove(BatchSearchIndex.Source.REMINDERS, batch));
+        tableVersions.bump(TableVersions.Table.REMINDERS);
     }
 
+    record BatchCommand(String chatId, String batch, int dayOffset) {}
 }
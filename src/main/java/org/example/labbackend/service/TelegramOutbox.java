@@ -0,0 +1,300 @@
+package org.example.labbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Outbound Telegram messages. Callers enqueue and return immediately; one
+ * virtual thread sends while keeping within Telegram's rate limits. It sends
+ * the oldest message whose chat may be sent to now, so a chat that is waiting
+ * out its interval or a 429 does not hold up the others. Messages to one chat
+ * are sent in order.
+ *
+ * Limits: at most one message per {@code telegram.outbox.per-chat-interval} to
+ * each chat (group chats allow about 20 a minute), and one per
+ * {@code telegram.outbox.global-interval} across all chats.
+ *
+ * Retries: a 429 holds the chat for the retry_after Telegram returns. Other
+ * failures hold it with exponential backoff, up to
+ * {@code telegram.outbox.max-attempts}. The message keeps its place at the head
+ * of its chat meanwhile.
+ *
+ * Digests: due reminders for the same chat that arrive within
+ * {@code telegram.outbox.digest-window} of each other are sent as one message.
+ *
+ * Reminders are reported to the {@link #onRemindersDelivered} handler only once
+ * Telegram has accepted their message. A reminder whose message is dropped, fails
+ * every attempt or is still queued at shutdown stays pending in the database.
+ */
+@Service
+public class TelegramOutbox {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    private final TelegramApiClient telegramApiClient;
+    private final LinkedBlockingDeque<Outbound> queue;
+    private final Duration perChatInterval;
+    private final Duration globalInterval;
+    private final Duration digestWindow;
+    private final int maxAttempts;
+
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dropped;
+
+    // Only touched by the worker thread
+    private final Map<String, Instant> chatNextAllowed = new HashMap<>();
+    private Instant globalNextAllowed = Instant.EPOCH;
+
+    private volatile Consumer<List<Long>> deliveryHandler;
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public TelegramOutbox(
+            TelegramApiClient telegramApiClient,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.outbox.capacity:1000}") int capacity,
+            @Value("${telegram.outbox.per-chat-interval:PT3S}") Duration perChatInterval,
+            @Value("${telegram.outbox.global-interval:PT0.034S}") Duration globalInterval,
+            @Value("${telegram.outbox.digest-window:PT2S}") Duration digestWindow,
+            @Value("${telegram.outbox.max-attempts:5}") int maxAttempts) {
+        this.telegramApiClient = telegramApiClient;
+        this.queue = new LinkedBlockingDeque<>(capacity);
+        this.perChatInterval = perChatInterval;
+        this.globalInterval = globalInterval;
+        this.digestWindow = digestWindow;
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("telegram.outbox.depth", queue, LinkedBlockingDeque::size)
+                .description("Messages waiting to be sent")
+                .register(meterRegistry);
+        this.latency = Timer.builder("telegram.outbox.latency")
+                .description("Time from enqueue to delivery")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("telegram.outbox.sent");
+        this.failed = meterRegistry.counter("telegram.outbox.failed");
+        this.dropped = meterRegistry.counter("telegram.outbox.dropped");
+    }
+
+    public void enqueue(String chatId, String text) {
+        offer(new Outbound(chatId, text, null, Instant.now(), List.of(), 0));
+    }
+
+    /**
+     * Queues a due-reminder line. Lines for the same chat that arrive within the
+     * digest window are sent together; a lone line is sent as {@code text}.
+     */
+    public void enqueueReminder(String chatId, String text, String digestLine, Long reminderId) {
+        offer(new Outbound(chatId, text, digestLine, Instant.now(), List.of(reminderId), 0));
+    }
+
+    /**
+     * Sets what runs once a reminder's message has been sent. Called on the outbox
+     * thread with the ids of the reminders in that message.
+     */
+    public void onRemindersDelivered(Consumer<List<Long>> handler) {
+        this.deliveryHandler = handler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofVirtual().name("telegram-outbox").start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("Telegram outbox stopped with " + queue.size() + " unsent messages");
+        }
+    }
+
+    private void offer(Outbound message) {
+        if (!queue.offer(message)) {
+            dropped.increment();
+            System.err.println("Telegram outbox full, dropping message to " + message.chatId());
+            return;
+        }
+        Thread current = worker;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Outbound message = nextReady();
+                if (message == null) {
+                    continue;
+                }
+                if (message.digestLine() != null) {
+                    message = collectDigest(message);
+                }
+                deliver(message);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the oldest message that may be sent now. Only the first
+     * queued message of each chat is a candidate. If none is ready, waits until
+     * the earliest one will be or a new message arrives, and returns null.
+     */
+    private Outbound nextReady() throws InterruptedException {
+        Instant now = Instant.now();
+        Instant wakeAt = null;
+        Set<String> seenChats = new HashSet<>();
+        for (Iterator<Outbound> it = queue.iterator(); it.hasNext(); ) {
+            Outbound message = it.next();
+            if (!seenChats.add(message.chatId())) {
+                continue;
+            }
+            Instant readyAt = readyAt(message);
+            if (!readyAt.isAfter(now)) {
+                it.remove();
+                return message;
+            }
+            if (wakeAt == null || readyAt.isBefore(wakeAt)) {
+                wakeAt = readyAt;
+            }
+        }
+        // offer() unparks this thread, so a message queued since the scan is not missed
+        if (wakeAt == null) {
+            LockSupport.park(this);
+        } else {
+            LockSupport.parkNanos(this, Duration.between(now, wakeAt).toNanos());
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return null;
+    }
+
+    // A reminder line also waits out its digest window, so later lines can join it
+    private Instant readyAt(Outbound message) {
+        Instant chatNext = chatNextAllowed.getOrDefault(message.chatId(), Instant.EPOCH);
+        if (message.digestLine() == null) {
+            return chatNext;
+        }
+        Instant digestEnd = message.enqueuedAt().plus(digestWindow);
+        return digestEnd.isAfter(chatNext) ? digestEnd : chatNext;
+    }
+
+    /**
+     * Folds every queued reminder for the same chat into {@code first}.
+     */
+    private Outbound collectDigest(Outbound first) {
+        List<String> lines = new ArrayList<>();
+        List<Long> reminderIds = new ArrayList<>(first.reminderIds());
+        lines.add(first.digestLine());
+        for (Iterator<Outbound> it = queue.iterator(); it.hasNext(); ) {
+            Outbound next = it.next();
+            if (next.digestLine() != null && next.chatId().equals(first.chatId())) {
+                it.remove();
+                lines.add(next.digestLine());
+                reminderIds.addAll(next.reminderIds());
+            }
+        }
+        if (lines.size() == 1) {
+            return first;
+        }
+        String text = lines.size() + " checks are due:\n" + String.join("\n", lines);
+        return new Outbound(first.chatId(), text, null, first.enqueuedAt(), reminderIds, 0);
+    }
+
+    /**
+     * One attempt. A retryable failure puts the message back at the head of the
+     * queue and holds its chat until the retry is due.
+     */
+    private void deliver(Outbound message) throws InterruptedException {
+        sleepUntil(globalNextAllowed);
+        try {
+            telegramApiClient.sendMessage(message.chatId(), message.text());
+            Instant now = Instant.now();
+            chatNextAllowed.put(message.chatId(), now.plus(perChatInterval));
+            globalNextAllowed = now.plus(globalInterval);
+            latency.record(Duration.between(message.enqueuedAt(), now));
+            sent.increment();
+            delivered(message.reminderIds());
+        } catch (Exception e) {
+            int attempt = message.failedAttempts() + 1;
+            // Other 4xx answers (bad Markdown, bot removed from the chat) fail the same way every time
+            boolean retryable = !(e instanceof HttpClientErrorException)
+                    || e instanceof HttpClientErrorException.TooManyRequests;
+            if (!retryable || attempt >= maxAttempts) {
+                failed.increment();
+                System.err.println("Failed to send Telegram message after " + attempt + " attempts: " + e.getMessage());
+                return;
+            }
+            // A 429 says exactly when this chat may be sent to again
+            Duration wait = e instanceof HttpClientErrorException.TooManyRequests tooMany
+                    ? telegramApiClient.retryAfter(tooMany)
+                    : INITIAL_BACKOFF.multipliedBy(1L << (attempt - 1));
+            chatNextAllowed.put(message.chatId(), Instant.now().plus(wait));
+            if (!queue.offerFirst(message.failed())) {
+                dropped.increment();
+                System.err.println("Telegram outbox full, dropping retry to " + message.chatId());
+            }
+        }
+    }
+
+    private void delivered(List<Long> reminderIds) {
+        Consumer<List<Long>> handler = deliveryHandler;
+        if (reminderIds.isEmpty() || handler == null) {
+            return;
+        }
+        try {
+            handler.accept(reminderIds);
+        } catch (Exception e) {
+            // Still pending in the database, so the reminders are sent again after the next reconciliation
+            System.err.println("Failed to record delivery of reminders " + reminderIds + ": " + e.getMessage());
+        }
+    }
+
+    private static void sleepUntil(Instant instant) throws InterruptedException {
+        Duration wait = Duration.between(Instant.now(), instant);
+        if (wait.isPositive()) {
+            Thread.sleep(wait);
+        }
+    }
+
+    private record Outbound(String chatId, String text, String digestLine, Instant enqueuedAt,
+                            List<Long> reminderIds, int failedAttempts) {
+
+        Outbound failed() {
+            return new Outbound(chatId, text, digestLine, enqueuedAt, reminderIds, failedAttempts + 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.labbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.labbackend.model.TelegramOffset;
+import org.example.labbackend.repository.TelegramOffsetRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives bot messages by long-polling getUpdates on a dedicated virtual
+ * thread. Each call waits up to {@code telegram.polling.timeout} seconds for an
+ * update, so commands are seen as soon as they are sent while an idle bot makes
+ * about one request a minute. Failures back off exponentially up to
+ * {@code telegram.polling.max-backoff}.
+ *
+ * The id of the last handled update is stored in telegram_offsets after each
+ * update. After a restart, polling resumes from there. An update is only
+ * confirmed once it has been handled. If handling fails on the database, or the
+ * process stops mid-update, that update is handled again. This is harmless
+ * because reminders are only created once per batch and interval. Any other
+ * failure is the update's own fault and would fail on every retry, so it is
+ * logged and skipped rather than blocking every later command.
+ */
+@Service
+public class TelegramUpdatePoller {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    private final TelegramApiClient telegramApiClient;
+    private final TelegramBotService telegramBotService;
+    private final TelegramOffsetRepository telegramOffsetRepository;
+    private final int pollTimeoutSeconds;
+    private final Duration maxBackoff;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TelegramUpdatePoller(
+            TelegramApiClient telegramApiClient,
+            TelegramBotService telegramBotService,
+            TelegramOffsetRepository telegramOffsetRepository,
+            @Value("${telegram.polling.timeout:50}") int pollTimeoutSeconds,
+            @Value("${telegram.polling.max-backoff:PT1M}") Duration maxBackoff) {
+        this.telegramApiClient = telegramApiClient;
+        this.telegramBotService = telegramBotService;
+        this.telegramOffsetRepository = telegramOffsetRepository;
+        this.pollTimeoutSeconds = pollTimeoutSeconds;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!telegramApiClient.isConfigured() || worker != null) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofVirtual().name("telegram-updates").start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        String botId = telegramApiClient.botId();
+        Long lastUpdateId = null;
+        Duration backoff = INITIAL_BACKOFF;
+
+        while (running) {
+            try {
+                if (lastUpdateId == null) {
+                    lastUpdateId = telegramOffsetRepository.findById(botId)
+                            .map(TelegramOffset::getLastUpdateId)
+                            .orElse(0L);
+                }
+                List<Map<String, Object>> updates = telegramApiClient.getUpdates(lastUpdateId + 1, pollTimeoutSeconds);
+                for (Map<String, Object> update : updates) {
+                    long updateId = ((Number) update.get("update_id")).longValue();
+                    if (updateId <= lastUpdateId) {
+                        continue;
+                    }
+                    try {
+                        telegramBotService.handleUpdate(update);
+                    } catch (DataAccessException e) {
+                        // Leaves the offset where it was, so the update is fetched again after the backoff
+                        throw e;
+                    } catch (RuntimeException e) {
+                        System.err.println("Skipping Telegram update " + updateId + " that failed: " + e);
+                    }
+                    telegramOffsetRepository.save(new TelegramOffset(botId, updateId, Instant.now()));
+                    lastUpdateId = updateId;
+                }
+                backoff = INITIAL_BACKOFF;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                // Log once per outage, not on every retry
+                if (backoff.equals(INITIAL_BACKOFF)) {
+                    System.err.println("Telegram polling failed, retrying with backoff: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+            }
+        }
+    }
+}
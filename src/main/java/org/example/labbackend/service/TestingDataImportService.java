@@ -0,0 +1,278 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.BulkImportResult.RowError;
+import org.example.labbackend.model.BatchCode;
+import org.example.labbackend.model.Measurement;
+import org.example.labbackend.model.TestingData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk insert path for instrument results. TestingData uses IDENTITY ids, which
+ * stops Hibernate from batching inserts, so rows are written with plain JDBC
+ * batches (rewritten into multi-row INSERTs by Connector/J) in chunked
+ * transactions. A chunk that fails is retried row by row so one bad row is
+ * reported without losing the rest of the load. Parsed measurement values for
+ * the new rows are filled in afterwards by the measurement backfill.
+ */
+@Service
+public class TestingDataImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO testing_data (batch, code, date, "
+            + Arrays.stream(Measurement.values()).map(Measurement::column).collect(Collectors.joining(", "))
+            + ", batch_plant, batch_year, batch_month, batch_seq, batch_suffix) VALUES ("
+            + "?, ".repeat(3 + Measurement.values().length + 4) + "?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchSearchIndex batchSearchIndex;
+    private final TestingMeasurementService testingMeasurementService;
+    private final TableVersions tableVersions;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public TestingDataImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            BatchSearchIndex batchSearchIndex,
+            TestingMeasurementService testingMeasurementService,
+            TableVersions tableVersions,
+            @Value("${import.jdbc-batch-size:500}") int batchSize,
+            @Value("${import.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSearchIndex = batchSearchIndex;
+        this.testingMeasurementService = testingMeasurementService;
+        this.tableVersions = tableVersions;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkImportResult importRows(List<TestingData> rows) {
+        ImportRun run = new ImportRun();
+        for (int i = 0; i < rows.size(); i++) {
+            run.add(i + 1, rows.get(i));
+        }
+        return run.finish();
+    }
+
+    /**
+     * Imports CSV with a header row of TestingData property names, the same layout
+     * that /api/export/testing produces. Empty cells are stored as NULL and an id
+     * column, if present, is ignored.
+     *
+     * @throws IllegalArgumentException if the header names an unknown column
+     */
+    public BulkImportResult importCsv(Reader source) throws IOException {
+        CsvReader csv = new CsvReader(source);
+        List<String> header = csv.next();
+        if (header == null) {
+            return new ImportRun().finish();
+        }
+        List<CsvColumn> columns = new ArrayList<>(header.size());
+        for (String name : header) {
+            columns.add(CsvColumn.of(name.trim()));
+        }
+
+        ImportRun run = new ImportRun();
+        int rowNumber = 0;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            rowNumber++;
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                rowNumber--;
+                continue;
+            }
+            if (record.size() != columns.size()) {
+                run.reject(rowNumber, "Expected " + columns.size() + " columns but found " + record.size());
+                continue;
+            }
+            TestingData row = new TestingData();
+            try {
+                for (int i = 0; i < columns.size(); i++) {
+                    String value = record.get(i).isEmpty() ? null : record.get(i);
+                    columns.get(i).apply(row, value);
+                }
+            } catch (DateTimeParseException e) {
+                run.reject(rowNumber, "Invalid date: " + e.getParsedString());
+                continue;
+            }
+            run.add(rowNumber, row);
+        }
+        return run.finish();
+    }
+
+    private void bind(PreparedStatement ps, TestingData row) throws SQLException {
+        int index = 1;
+        ps.setObject(index++, row.getBatch());
+        ps.setObject(index++, row.getCode());
+        ps.setObject(index++, row.getDate());
+        for (Measurement measurement : Measurement.values()) {
+            ps.setObject(index++, measurement.get(row));
+        }
+        BatchCode.bind(ps, index, row.getBatch());
+    }
+
+    private final class ImportRun {
+
+        private final List<NumberedRow> pending = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        // Highest id before the import; everything above it is parsed once the run ends
+        private final long startId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM testing_data", Long.class);
+        private int received;
+        private int inserted;
+        private int failed;
+
+        void add(int rowNumber, TestingData row) {
+            received++;
+            pending.add(new NumberedRow(rowNumber, row));
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(int rowNumber, String message) {
+            received++;
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(rowNumber, message));
+            }
+        }
+
+        BulkImportResult finish() {
+            flush();
+            if (inserted > 0) {
+                tableVersions.bump(TableVersions.Table.TESTING);
+                testingMeasurementService.backfillInBackground(startId);
+            }
+            return new BulkImportResult(received, inserted, failed, errors);
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        INSERT_SQL, pending, batchSize, (ps, numbered) -> bind(ps, numbered.row())));
+                inserted += pending.size();
+                pending.forEach(numbered -> batchSearchIndex.add(BatchSearchIndex.Source.TESTING, numbered.row().getBatch()));
+            } catch (DataAccessException e) {
+                // The chunk was rolled back; insert its rows one by one to find the bad ones
+                for (NumberedRow numbered : pending) {
+                    try {
+                        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, numbered.row()));
+                        inserted++;
+                        batchSearchIndex.add(BatchSearchIndex.Source.TESTING, numbered.row().getBatch());
+                    } catch (DataAccessException rowError) {
+                        received--;
+                        reject(numbered.rowNumber(), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                    }
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    private record NumberedRow(int rowNumber, TestingData row) {}
+
+    private interface CsvColumn {
+
+        void apply(TestingData row, String value);
+
+        static CsvColumn of(String name) {
+            switch (name) {
+                case "id":
+                    return (row, value) -> { };
+                case "batch":
+                    return TestingData::setBatch;
+                case "code":
+                    return TestingData::setCode;
+                case "date":
+                    return (row, value) -> row.setDate(value != null ? LocalDate.parse(value) : null);
+                default:
+                    Measurement measurement = Measurement.ofProperty(name);
+                    if (measurement == null) {
+                        throw new IllegalArgumentException("Unknown column: " + name);
+                    }
+                    return measurement::set;
+            }
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields, doubled quotes and line breaks
+     * inside quotes. Reads one record at a time so large uploads stream.
+     */
+    private static final class CsvReader {
+
+        private final BufferedReader reader;
+
+        CsvReader(Reader source) {
+            this.reader = new BufferedReader(source, 64 * 1024);
+        }
+
+        List<String> next() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '\r') {
+                    // swallow; the following \n ends the record
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.model.Measurement;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.model.TestingMeasurement;
+import org.example.labbackend.repository.TestingDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps testing_measurements in step with testing_data. The API write paths
+ * re-parse a row as they save it; rows inserted by the bulk import or outside
+ * the API are picked up by a chunked backfill, which runs at startup and after
+ * each import.
+ */
+@Service
+public class TestingMeasurementService {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO testing_measurements (testing_id, measurement, code, test_date, num_value, unit, status)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            code = VALUES(code),
+            test_date = VALUES(test_date),
+            num_value = VALUES(num_value),
+            unit = VALUES(unit),
+            status = VALUES(status)
+        """;
+
+    // Rows without any recorded measurement are selected again on every run; there are few of them
+    private static final String UNPARSED_SQL = "SELECT t.id, t.code, t.date, "
+            + Arrays.stream(Measurement.values()).map(m -> "t." + m.column()).collect(Collectors.joining(", "))
+            + " FROM testing_data t WHERE t.id > ?"
+            + " AND NOT EXISTS (SELECT 1 FROM testing_measurements m WHERE m.testing_id = t.id)"
+            + " ORDER BY t.id LIMIT ?";
+
+    // Row in data_migrations recording that normalizeUnits() has run
+    private static final String NORMALIZE_UNITS_MIGRATION = "testing-measurements-normalize-units";
+
+    private final TestingDataRepository testingDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TableVersions tableVersions;
+    private final int chunkSize;
+
+    public TestingMeasurementService(
+            TestingDataRepository testingDataRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TableVersions tableVersions,
+            @Value("${testing-measurements.backfill.chunk-size:1000}") int chunkSize) {
+        this.testingDataRepository = testingDataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tableVersions = tableVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Saves a testing_data row and its parsed measurements in one transaction, so
+     * a row is never committed without them.
+     */
+    @Transactional
+    public TestingData save(TestingData row) {
+        TestingData saved = testingDataRepository.save(row);
+        refresh(saved);
+        return saved;
+    }
+
+    /**
+     * Replaces the parsed measurements of a saved row. Joins the caller's
+     * transaction if there is one.
+     */
+    public void refresh(TestingData row) {
+        List<TestingMeasurement> parsed = parse(row);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM testing_measurements WHERE testing_id = ?", row.getId());
+            write(parsed);
+            tableVersions.bump(TableVersions.Table.TESTING);
+        });
+    }
+
+    public void delete(Collection<Long> testingIds) {
+        if (testingIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(testingIds.size(), "?"));
+        jdbcTemplate.update("DELETE FROM testing_measurements WHERE testing_id IN (" + placeholders + ")",
+                testingIds.toArray());
+        tableVersions.bump(TableVersions.Table.TESTING);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            normalizeUnits();
+        } catch (Exception e) {
+            System.err.println("Testing measurement unit conversion failed: " + e.getMessage());
+        }
+        backfillInBackground(0L);
+    }
+
+    /**
+     * Converts values stored before {@link TestingMeasurement#CONVERSIONS} existed.
+     * The unit column is not indexed, so each UPDATE scans the table; a row in
+     * data_migrations records the first successful run and later startups skip it.
+     * The conversions and the marker commit together.
+     */
+    public void normalizeUnits() {
+        Integer converted = transactionTemplate.execute(status -> {
+            Integer applied = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM data_migrations WHERE name = ?", Integer.class, NORMALIZE_UNITS_MIGRATION);
+            if (applied != null && applied > 0) {
+                return 0;
+            }
+            int count = 0;
+            for (Map.Entry<String, TestingMeasurement.Conversion> entry : TestingMeasurement.CONVERSIONS.entrySet()) {
+                TestingMeasurement.Conversion conversion = entry.getValue();
+                count += jdbcTemplate.update(
+                        "UPDATE testing_measurements SET num_value = num_value * ? + ?, unit = ? WHERE unit = ?",
+                        conversion.factor(), conversion.offset(), conversion.unit(), entry.getKey());
+            }
+            // A second instance starting at the same time fails here on the key and rolls back;
+            // its UPDATEs waited on this one's row locks and matched nothing
+            jdbcTemplate.update("INSERT INTO data_migrations (name, applied_at) VALUES (?, ?)",
+                    NORMALIZE_UNITS_MIGRATION, Timestamp.from(Instant.now()));
+            return count;
+        });
+        if (converted != null && converted > 0) {
+            tableVersions.bump(TableVersions.Table.TESTING);
+            System.out.println("Converted " + converted + " testing measurements to their stored unit");
+        }
+    }
+
+    /**
+     * Parses rows with an id above {@code afterId} that have no measurements yet,
+     * on a virtual thread.
+     */
+    public void backfillInBackground(long afterId) {
+        Thread.ofVirtual().name("testing-measurement-backfill").start(() -> {
+            try {
+                int parsed = backfill(afterId);
+                if (parsed > 0) {
+                    // Measurement queries and control charts are served under /api/testing
+                    tableVersions.bump(TableVersions.Table.TESTING);
+                    System.out.println("Parsed measurements for " + parsed + " testing data rows");
+                }
+            } catch (Exception e) {
+                System.err.println("Testing measurement backfill failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public int backfill(long afterId) {
+        long lastId = afterId;
+        int total = 0;
+        while (true) {
+            List<TestingData> rows = jdbcTemplate.query(UNPARSED_SQL, TestingMeasurementService::mapRow, lastId, chunkSize);
+            if (rows.isEmpty()) {
+                return total;
+            }
+            List<TestingMeasurement> parsed = new ArrayList<>();
+            rows.forEach(row -> parsed.addAll(parse(row)));
+            transactionTemplate.executeWithoutResult(status -> write(parsed));
+            total += rows.size();
+
+            lastId = rows.get(rows.size() - 1).getId();
+            if (rows.size() < chunkSize) {
+                return total;
+            }
+        }
+    }
+
+    private void write(List<TestingMeasurement> parsed) {
+        if (parsed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, parsed, parsed.size(), (ps, m) -> {
+            ps.setObject(1, m.getTestingId());
+            ps.setString(2, m.getMeasurement().name());
+            ps.setObject(3, m.getCode());
+            ps.setObject(4, m.getTestDate());
+            ps.setObject(5, m.getNumericValue());
+            ps.setObject(6, m.getUnit());
+            ps.setString(7, m.getStatus().name());
+        });
+    }
+
+    private static List<TestingMeasurement> parse(TestingData row) {
+        List<TestingMeasurement> parsed = new ArrayList<>();
+        for (Measurement measurement : Measurement.values()) {
+            TestingMeasurement value = TestingMeasurement.of(row, measurement);
+            if (value != null) {
+                parsed.add(value);
+            }
+        }
+        return parsed;
+    }
+
+    private static TestingData mapRow(ResultSet rs, int rowNum) throws SQLException {
+        TestingData row = new TestingData();
+        row.setId(rs.getLong(1));
+        row.setCode(rs.getString(2));
+        row.setDate(rs.getObject(3, LocalDate.class));
+        int index = 4;
+        for (Measurement measurement : Measurement.values()) {
+            measurement.set(row, rs.getString(index++));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.labbackend;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * A throwaway MariaDB server, downloaded with the MariaDB4j artifact and started
+ * on a free port, holding an empty {@code grease_data} schema. Hibernate creates
+ * the tables on startup ({@code ddl-auto=update}), as it does against MySQL.
+ *
+ * Used by the tests and by the load test, so neither ever touches the schema the
+ * environment is configured for.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    private static final String SCHEMA = "grease_data";
+
+    private static EmbeddedDatabase shared;
+
+    private final DB db;
+
+    public EmbeddedDatabase() throws ManagedProcessException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(SCHEMA);
+    }
+
+    /**
+     * One server for every test in the JVM, started on first use and stopped when
+     * the JVM exits.
+     */
+    public static synchronized EmbeddedDatabase shared() {
+        if (shared == null) {
+            try {
+                shared = new EmbeddedDatabase();
+            } catch (ManagedProcessException e) {
+                throw new IllegalStateException("Could not start the embedded database", e);
+            }
+            EmbeddedDatabase database = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    database.close();
+                } catch (ManagedProcessException e) {
+                    System.err.println("Could not stop the embedded database: " + e.getMessage());
+                }
+            }));
+        }
+        return shared;
+    }
+
+    public String url() {
+        return "jdbc:mariadb://localhost:" + db.getConfiguration().getPort() + "/" + SCHEMA;
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        db.stop();
+    }
+}
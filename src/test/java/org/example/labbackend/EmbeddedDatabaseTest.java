@@ -0,0 +1,28 @@
+package org.example.labbackend;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Base for tests that start the application. The datasource points at the shared
+ * {@link EmbeddedDatabase}, never at the MySQL the environment configures, so
+ * tests that write (and the startup jobs that rebuild and backfill) cannot touch
+ * real data. The Telegram bot stays off whatever the environment says.
+ *
+ * Every subclass shares one application context and one database, so tests use
+ * batch ids and product codes no other test uses.
+ */
+@SpringBootTest
+public abstract class EmbeddedDatabaseTest {
+
+    @DynamicPropertySource
+    static void embeddedDatabase(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase database = EmbeddedDatabase.shared();
+        registry.add("spring.datasource.url", database::url);
+        registry.add("spring.datasource.driver-class-name", () -> "org.mariadb.jdbc.Driver");
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("telegram.bot.enabled", () -> "false");
+    }
+}
@@ -1,10 +1,8 @@
 package org.example.labbackend;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class LabBackendApplicationTests {
+class LabBackendApplicationTests extends EmbeddedDatabaseTest {
 
 	@Test
 	void contextLoads() {
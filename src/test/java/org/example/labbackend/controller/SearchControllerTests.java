@@ -0,0 +1,97 @@
+package org.example.labbackend.controller;
+
+import org.example.labbackend.EmbeddedDatabaseTest;
+import org.example.labbackend.model.Reminder;
+import org.example.labbackend.model.Retain;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.service.TelegramBotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Deleting a row through the API must take its batch out of batch search at
+ * once, not at the next index rebuild.
+ */
+class SearchControllerTests extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private SearchController searchController;
+
+    @Autowired
+    private TestingDataController testingDataController;
+
+    @Autowired
+    private RetainController retainController;
+
+    @Autowired
+    private ReminderController reminderController;
+
+    @Autowired
+    private TelegramBotService telegramBotService;
+
+    @Test
+    void deletedTestingRowLeavesSearch() {
+        TestingData first = testingRow("ZS9901");
+        TestingData second = testingRow("ZS9901");
+
+        testingDataController.delete(first.getId());
+        assertEquals(List.of("ZS9901"), search("ZS9901", "testing"));
+
+        testingDataController.deleteAll(List.of(second.getId()));
+        assertEquals(List.of(), search("ZS9901", "testing"));
+    }
+
+    @Test
+    void deletedRetainLeavesSearch() {
+        Retain retain = new Retain();
+        retain.setBatch("ZS9902");
+        Retain saved = retainController.create(retain);
+        assertEquals(List.of("ZS9902"), search("ZS9902", "retains"));
+
+        assertEquals(204, retainController.delete(saved.getId()).getStatusCode().value());
+        assertEquals(List.of(), search("ZS9902", "retains"));
+    }
+
+    @Test
+    void deletedRemindersLeaveSearch() {
+        Reminder weekly = reminderController.createSingleReminder(
+                new ReminderController.SingleReminderRequest("ZS9903", "7d", 0)).getBody();
+        reminderController.createSingleReminder(new ReminderController.SingleReminderRequest("ZS9903", "3m", 0));
+        assertEquals(List.of("ZS9903"), search("ZS9903", "reminders"));
+
+        reminderController.delete(weekly.getId());
+        assertEquals(List.of("ZS9903"), search("ZS9903", "reminders"));
+
+        reminderController.deleteByReminderId("ZS9903-3m");
+        assertEquals(List.of(), search("ZS9903", "reminders"));
+    }
+
+    @Test
+    void registeringBatchAgainDoesNotInflateSearchCount() {
+        telegramBotService.addBatchReminders("ZS9904", 0);
+        // Every interval already exists, so nothing is inserted or counted
+        telegramBotService.addBatchReminders("ZS9904", 0);
+
+        for (String interval : List.of("48h", "7d", "3m")) {
+            reminderController.deleteByReminderId("ZS9904-" + interval);
+            assertEquals(List.of("ZS9904"), search("ZS9904", "reminders"));
+        }
+        reminderController.deleteByReminderId("ZS9904-1y");
+        assertEquals(List.of(), search("ZS9904", "reminders"));
+    }
+
+    private TestingData testingRow(String batch) {
+        TestingData row = new TestingData();
+        row.setBatch(batch);
+        row.setCode("1000");
+        return testingDataController.create(row);
+    }
+
+    private List<String> search(String batch, String table) {
+        return searchController.searchBatches(batch, 20).get(table);
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.labbackend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BatchCodeTests {
+
+    @Test
+    void parsesValidIdentifiers() {
+        assertEquals(List.of("N", 2026, 1, 102, "-"), parts("NA6102"));
+        assertEquals(List.of("N", 2025, 12, 3, "-"), parts("NL5003"));
+        assertEquals(List.of("S", 2020, 6, 123456, "-"), parts("SF0123456"));
+    }
+
+    @Test
+    void acceptsLowercaseAndSurroundingSpaces() {
+        assertEquals(List.of("N", 2025, 12, 3, "Y"), parts("nl5003y"));
+        assertEquals(List.of("N", 2026, 1, 102, "-"), parts("  NA6102 "));
+    }
+
+    @Test
+    void keepsSuffixLetters() {
+        assertEquals(List.of("N", 2026, 2, 100, "B"), parts("NB6100B"));
+        assertEquals(List.of("N", 2026, 2, 100, "REWORK"), parts("NB6100REWORK"));
+    }
+
+    @Test
+    void rejectsIdentifiersOutsideTheConvention() {
+        // Months run A-L
+        assertNull(BatchCode.parse("NM6102"));
+        assertNull(BatchCode.parse("N@6102"));
+        assertNull(BatchCode.parse("NA6"));
+        assertNull(BatchCode.parse("NAX102"));
+        assertNull(BatchCode.parse("NA61023456"));
+        assertNull(BatchCode.parse("NA6102-2"));
+        assertNull(BatchCode.parse(""));
+        assertNull(BatchCode.parse(null));
+    }
+
+    @Test
+    void ofMarksUnparseableBatches() {
+        assertEquals(List.of("N", 2026, 1, 102, "-"), describe(BatchCode.of("NA6102")));
+        assertEquals(Arrays.asList("-", BatchCode.UNPARSEABLE_YEAR, null, null, "-"), describe(BatchCode.of("NM6102")));
+        assertNull(BatchCode.of(null));
+    }
+
+    private static List<Object> parts(String batch) {
+        return describe(BatchCode.parse(batch));
+    }
+
+    // plant, year, month, sequence, suffix; "-" for a missing plant or suffix
+    private static List<Object> describe(BatchCode code) {
+        return Arrays.asList(
+                code.getPlant() != null ? code.getPlant() : "-",
+                code.getYear(),
+                code.getMonth(),
+                code.getSequence(),
+                code.getSuffix() != null ? code.getSuffix() : "-");
+    }
+}
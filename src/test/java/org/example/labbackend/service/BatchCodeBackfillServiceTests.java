@@ -0,0 +1,56 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.EmbeddedDatabaseTest;
+import org.example.labbackend.model.BatchCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rows written straight to the database, bypassing the entity listener, as a
+ * legacy import or a manual fix would.
+ */
+class BatchCodeBackfillServiceTests extends EmbeddedDatabaseTest {
+
+    private static final String PARSED_BATCH = "ZD9105X";
+    private static final String UNPARSEABLE_BATCH = "ZD-BACKFILL";
+
+    @Autowired
+    private BatchCodeBackfillService batchCodeBackfillService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM retains WHERE batch IN (?, ?)", PARSED_BATCH, UNPARSEABLE_BATCH);
+    }
+
+    @Test
+    void fillsParsedColumnsAndMarksUnparseableRowsOnce() {
+        jdbcTemplate.update("INSERT INTO retains (batch) VALUES (?), (?)", PARSED_BATCH, UNPARSEABLE_BATCH);
+
+        batchCodeBackfillService.backfillAll();
+
+        assertEquals(Arrays.asList("Z", 2029, 4, 105, "X"), columns(PARSED_BATCH));
+        assertEquals(Arrays.asList(null, BatchCode.UNPARSEABLE_YEAR, null, null, null), columns(UNPARSEABLE_BATCH));
+        // Nothing is left for the next startup to read again
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM retains WHERE batch IN (?, ?) AND batch_year IS NULL",
+                Integer.class, PARSED_BATCH, UNPARSEABLE_BATCH));
+    }
+
+    private List<Object> columns(String batch) {
+        return jdbcTemplate.queryForObject(
+                "SELECT batch_plant, batch_year, batch_month, batch_seq, batch_suffix FROM retains WHERE batch = ?",
+                (rs, rowNum) -> Arrays.asList(rs.getString(1), (Object) rs.getObject(2, Integer.class),
+                        rs.getObject(3, Integer.class), rs.getObject(4, Integer.class), rs.getString(5)),
+                batch);
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.labbackend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.labbackend.controller.AuthController;
+import org.example.labbackend.service.LdapAuthService.LdapUserInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The gate in front of a stub directory whose binds block until the test opens
+ * a latch, so attempts can be held in flight while others arrive.
+ */
+class LoginGateTests {
+
+    private final StubDirectory directory = new StubDirectory();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginGate gate;
+
+    @AfterEach
+    void shutdown() {
+        directory.release.countDown();
+        gate.shutdown();
+    }
+
+    @Test
+    void sameCredentialsShareOneBind() throws Exception {
+        gate = gate(2, 0, Duration.ofSeconds(5));
+        CompletableFuture<LdapUserInfo> first = gate.authenticate("JDoe", "secret");
+        // Joins the first instead of taking the second slot
+        CompletableFuture<LdapUserInfo> second = gate.authenticate("JDoe", "secret");
+        CompletableFuture<LdapUserInfo> otherPassword = gate.authenticate("JDoe", "wrong");
+        CompletableFuture<LdapUserInfo> otherCase = gate.authenticate("jdoe", "secret");
+        directory.release.countDown();
+
+        assertEquals("JDoe", get(first).username());
+        assertEquals("JDoe", get(second).username());
+        assertEquals("JDoe", get(otherPassword).username());
+        // A different spelling is an attempt of its own, and finds both slots taken
+        assertInstanceOf(RejectedExecutionException.class, failure(otherCase));
+        awaitIdle();
+        assertEquals(List.of("JDoe", "JDoe"), directory.binds);
+    }
+
+    @Test
+    void fullQueueIsRejectedWithServiceUnavailable() throws Exception {
+        gate = gate(1, 0, Duration.ofSeconds(5));
+        CompletableFuture<LdapUserInfo> running = gate.authenticate("jdoe", "secret");
+        directory.started.await(5, TimeUnit.SECONDS);
+
+        assertInstanceOf(RejectedExecutionException.class, failure(gate.authenticate("asmith", "secret")));
+        AuthController controller = new AuthController(gate, null);
+        assertEquals(503, controller.login(new AuthController.LoginRequest("bjones", "secret"))
+                .get(5, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals(2, meterRegistry.counter("auth.login.rejected").count());
+
+        directory.release.countDown();
+        assertEquals("jdoe", get(running).username());
+        assertEquals(List.of("jdoe"), directory.binds);
+    }
+
+    @Test
+    void deadlinePassesWhileWaitingForPermit() throws Exception {
+        gate = gate(1, 1, Duration.ofMillis(200));
+        CompletableFuture<LdapUserInfo> running = gate.authenticate("jdoe", "secret");
+        directory.started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<LdapUserInfo> waiting = gate.authenticate("asmith", "secret");
+
+        assertInstanceOf(TimeoutException.class, failure(waiting));
+        assertInstanceOf(TimeoutException.class, failure(running));
+        directory.release.countDown();
+        awaitIdle();
+        // The waiting attempt gave up without ever reaching the directory
+        assertEquals(List.of("jdoe"), directory.binds);
+    }
+
+    @Test
+    void deadlinePassesDuringBind() throws Exception {
+        gate = gate(1, 0, Duration.ofMillis(200));
+        CompletableFuture<LdapUserInfo> running = gate.authenticate("jdoe", "secret");
+
+        assertInstanceOf(TimeoutException.class, failure(running));
+        assertEquals(1, meterRegistry.counter("auth.login.timed-out").count());
+        // The abandoned bind still counts against the limit until the directory answers
+        assertInstanceOf(RejectedExecutionException.class, failure(gate.authenticate("asmith", "secret")));
+
+        directory.release.countDown();
+        awaitIdle();
+        assertEquals("bjones", get(gate.authenticate("bjones", "secret")).username());
+    }
+
+    @Test
+    void errorsReleaseThePermitAndPendingCount() throws Exception {
+        gate = gate(1, 0, Duration.ofSeconds(5));
+        directory.release.countDown();
+        directory.failure = new LdapAuthService.DirectoryUnavailableException("unreachable", null);
+
+        assertInstanceOf(LdapAuthService.DirectoryUnavailableException.class,
+                failure(gate.authenticate("jdoe", "secret")));
+        awaitIdle();
+
+        // A leaked pending count would reject this attempt, and a leaked permit would time it out
+        directory.failure = null;
+        assertEquals("jdoe", get(gate.authenticate("jdoe", "secret")).username());
+    }
+
+    private LoginGate gate(int maxConcurrent, int maxQueued, Duration timeout) {
+        return new LoginGate(directory, meterRegistry, maxConcurrent, maxQueued, timeout);
+    }
+
+    private static LdapUserInfo get(CompletableFuture<LdapUserInfo> login) throws Exception {
+        return login.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(CompletableFuture<LdapUserInfo> login) {
+        return assertThrows(ExecutionException.class, () -> login.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+    // Attempts that gave up can still be holding a permit or waiting for one
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.login.pending").gauge().value() > 0) {
+            assertTrue(System.nanoTime() < deadline, "logins still pending");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class StubDirectory extends LdapAuthService {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> binds = new CopyOnWriteArrayList<>();
+        volatile RuntimeException failure;
+
+        StubDirectory() {
+            super("ldap://localhost:389", "dc=example,dc=com", "ou=users", "(sAMAccountName={0})", "example.com",
+                    "", "", Duration.ofSeconds(1), Duration.ofSeconds(1), 1, Duration.ofMinutes(1),
+                    10, Duration.ofMinutes(1));
+        }
+
+        @Override
+        public LdapUserInfo authenticate(String username, String password) {
+            binds.add(username);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new LdapUserInfo(username, username, null);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.EmbeddedDatabaseTest;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.MonthlyStats;
+import org.example.labbackend.repository.MonthlyStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every write moves the monthly_stats rollup by exactly what the batch added or
+ * removed. Batches here fall in January 2029, which no other test writes, and
+ * the assertions compare against the rollup as the test found it.
+ */
+class MonthlyBatchServiceTests extends EmbeddedDatabaseTest {
+
+    private static final String BATCH = "ZA9101";
+    private static final int YEAR = 2029;
+    private static final int MONTH = 1;
+
+    @Autowired
+    private MonthlyBatchService monthlyBatchService;
+
+    @Autowired
+    private MonthlyStatsRepository monthlyStatsRepository;
+
+    @AfterEach
+    void cleanUp() {
+        monthlyBatchService.delete(BATCH);
+    }
+
+    @Test
+    void writesApplyTheirDeltaToTheRollup() {
+        List<Long> before = stats();
+
+        monthlyBatchService.save(batch("Yes", 4_000));
+        assertEquals(plus(before, 1, 1, 4_000, 0, 0), stats());
+
+        // Saving over an existing batch replaces its contribution rather than adding a second one
+        monthlyBatchService.save(batch("No", 1_500));
+        assertEquals(plus(before, 1, 0, 0, 1, 1_500), stats());
+
+        monthlyBatchService.update(BATCH, batch("Yes", 2_500));
+        assertEquals(plus(before, 1, 1, 2_500, 0, 0), stats());
+
+        monthlyBatchService.delete(BATCH);
+        assertEquals(before, stats());
+    }
+
+    private static MonthlyBatch batch(String released, int lbs) {
+        MonthlyBatch batch = new MonthlyBatch();
+        batch.setBatch(BATCH);
+        batch.setCode(1000);
+        batch.setDateStart(LocalDateTime.of(YEAR, MONTH, 5, 6, 0));
+        batch.setLbs(lbs);
+        batch.setReleased(released);
+        return batch;
+    }
+
+    // batch count, batches released, total pounds, rework batches, rework pounds
+    private List<Long> stats() {
+        return monthlyStatsRepository.findById(new MonthlyStats.Key(YEAR, MONTH))
+                .map(stats -> List.of(stats.getBatchCount(), stats.getBatchesReleased(), stats.getTotalPounds(),
+                        stats.getReworkBatches(), stats.getReworkPounds()))
+                .orElse(List.of(0L, 0L, 0L, 0L, 0L));
+    }
+
+    private static List<Long> plus(List<Long> stats, long... delta) {
+        return List.of(stats.get(0) + delta[0], stats.get(1) + delta[1], stats.get(2) + delta[2],
+                stats.get(3) + delta[3], stats.get(4) + delta[4]);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.repository.ProductNameRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductDirectoryTests {
+
+    private static final List<ProductName> PRODUCTS = List.of(
+            new ProductName(100, "Lithium Complex EP 2"),
+            new ProductName(200, "Calcium Sulfonate Complex"),
+            new ProductName(300, "Complex Aluminum"),
+            new ProductName(400, "Lithium"));
+
+    private final ProductDirectory directory = new ProductDirectory(repository(() -> PRODUCTS));
+
+    @Test
+    void prefixMatchesWordStartsEarliestFirst() {
+        assertEquals(List.of(300, 100, 200), codes(directory.autocomplete("comp", 10)));
+        assertEquals(List.of(300, 100), codes(directory.autocomplete("comp", 2)));
+        assertEquals(List.of(100, 400), codes(directory.autocomplete(" LITH ", 10)));
+        assertEquals(List.of(), codes(directory.autocomplete("  ", 10)));
+    }
+
+    @Test
+    void shortPrefixesTolerateOneEdit() {
+        assertEquals(List.of(100, 400), codes(directory.autocomplete("litj", 10)));
+        assertEquals(List.of(), codes(directory.autocomplete("lxtj", 10)));
+    }
+
+    @Test
+    void longerPrefixesTolerateTwoEdits() {
+        // "cmplx" is "compl" with the o dropped and an x added
+        assertEquals(List.of(300, 100, 200), codes(directory.autocomplete("cmplx", 10)));
+        assertEquals(List.of(), codes(directory.autocomplete("cmpxxx", 10)));
+    }
+
+    @Test
+    void transposedLettersCountAsOneEdit() {
+        assertEquals(1, ProductDirectory.distance("ltih", "lith", 1));
+        assertEquals(List.of(100, 400), codes(directory.autocomplete("ltih", 10)));
+        assertEquals(0, ProductDirectory.distance("grease", "grease", 2));
+        // Stops at max + 1 rather than computing the full distance
+        assertEquals(3, ProductDirectory.distance("kitten", "sitting", 2));
+        assertEquals(2, ProductDirectory.distance("ab", "abcdef", 1));
+    }
+
+    @Test
+    void invalidateDuringLoadDiscardsTheLoadedSnapshot() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<ProductName> renamed = List.of(new ProductName(100, "Lithium Complex EP 2 Red"));
+        ProductDirectory slowDirectory = new ProductDirectory(repository(() -> {
+            if (loads.incrementAndGet() > 1) {
+                return renamed;
+            }
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PRODUCTS;
+        }));
+
+        CompletableFuture<List<ProductName>> firstRead = CompletableFuture.supplyAsync(slowDirectory::findAll);
+        loading.await(5, TimeUnit.SECONDS);
+        // A rename commits while the first load is still reading the old rows
+        slowDirectory.invalidate();
+        release.countDown();
+
+        // The reader that started before the write still sees what it loaded, but does not publish it
+        assertEquals(PRODUCTS, firstRead.get(5, TimeUnit.SECONDS));
+        assertEquals(renamed, slowDirectory.findAll());
+        assertEquals(renamed, slowDirectory.findAll());
+        assertEquals(2, loads.get());
+    }
+
+    private static List<Integer> codes(List<ProductName> products) {
+        return products.stream().map(ProductName::getCode).toList();
+    }
+
+    // Only findAll() is ever called by the directory
+    private static ProductNameRepository repository(Supplier<List<ProductName>> rows) {
+        return (ProductNameRepository) Proxy.newProxyInstance(
+                ProductNameRepository.class.getClassLoader(),
+                new Class<?>[]{ProductNameRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return rows.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.labbackend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.labbackend.EmbeddedDatabaseTest;
+import org.example.labbackend.config.HibernateCacheConfig;
+import org.example.labbackend.model.MonthlyBatch;
+import org.example.labbackend.model.ProductName;
+import org.example.labbackend.model.QcLog;
+import org.example.labbackend.repository.ProductNameRepository;
+import org.example.labbackend.repository.QcLogRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes must evict only what they change. Writing a batch updates monthly_stats
+ * with native statements, which must not empty the QC and product regions, and a
+ * single-row update must not empty its own region.
+ */
+class SecondLevelCacheTests extends EmbeddedDatabaseTest {
+
+    private static final String QC_BATCH = "ZL9901";
+    private static final String WRITTEN_BATCH = "ZL9902";
+    private static final String UPDATED_QC_BATCH = "ZL9903";
+    private static final int PRODUCT_CODE = 999_901;
+
+    @Autowired
+    private MonthlyBatchService monthlyBatchService;
+
+    @Autowired
+    private QcLogRepository qcLogRepository;
+
+    @Autowired
+    private ProductNameRepository productNameRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        monthlyBatchService.delete(WRITTEN_BATCH);
+        qcLogRepository.deleteRow(QC_BATCH);
+        qcLogRepository.deleteRow(UPDATED_QC_BATCH);
+        productNameRepository.deleteRow(PRODUCT_CODE);
+    }
+
+    @Test
+    void cachedRowsSurviveBatchWrite() {
+        QcLog qcLog = new QcLog();
+        qcLog.setBatch(QC_BATCH);
+        qcLog.setCode("1000");
+        qcLogRepository.save(qcLog);
+        productNameRepository.save(new ProductName(PRODUCT_CODE, "Cache Test Grease"));
+
+        // Each findById runs in its own session, so a second read can only come from the second-level cache
+        qcLogRepository.findById(QC_BATCH);
+        productNameRepository.findById(PRODUCT_CODE);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long qcHits = statistics.getCacheRegionStatistics(HibernateCacheConfig.QC_REGION).getHitCount();
+        long productHits = statistics.getCacheRegionStatistics(HibernateCacheConfig.PRODUCTS_REGION).getHitCount();
+
+        MonthlyBatch batch = new MonthlyBatch();
+        batch.setBatch(WRITTEN_BATCH);
+        batch.setCode(1000);
+        batch.setDateStart(LocalDateTime.of(2029, 12, 1, 6, 0));
+        batch.setLbs(4_000);
+        batch.setReleased("Yes");
+        monthlyBatchService.save(batch);
+
+        qcLogRepository.findById(QC_BATCH);
+        productNameRepository.findById(PRODUCT_CODE);
+
+        assertEquals(qcHits + 1,
+                statistics.getCacheRegionStatistics(HibernateCacheConfig.QC_REGION).getHitCount());
+        assertEquals(productHits + 1,
+                statistics.getCacheRegionStatistics(HibernateCacheConfig.PRODUCTS_REGION).getHitCount());
+    }
+
+    @Test
+    void cachedRowsSurviveSingleRowUpdate() {
+        for (String batch : new String[]{QC_BATCH, UPDATED_QC_BATCH}) {
+            QcLog qcLog = new QcLog();
+            qcLog.setBatch(batch);
+            qcLog.setCode("1000");
+            qcLogRepository.save(qcLog);
+        }
+        qcLogRepository.findById(QC_BATCH);
+
+        QcLog values = new QcLog();
+        values.setCode("1001");
+        values.setReleasedBy("tech01");
+        assertEquals(1, qcLogRepository.updateRow(UPDATED_QC_BATCH, values));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long qcHits = statistics.getCacheRegionStatistics(HibernateCacheConfig.QC_REGION).getHitCount();
+        qcLogRepository.findById(QC_BATCH);
+        assertEquals(qcHits + 1,
+                statistics.getCacheRegionStatistics(HibernateCacheConfig.QC_REGION).getHitCount());
+        assertEquals("1001", qcLogRepository.findById(UPDATED_QC_BATCH).orElseThrow().getCode());
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.dto.SpcReport.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Western Electric rules 1-4 on fixed series, against a center line of 0 and a
+ * sigma of 1, so every value is its own z-score.
+ */
+class SpcServiceTests {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 1, 5);
+
+    @Test
+    void rule1FlagsOnePointBeyondThreeSigma() {
+        assertEquals(List.of(), rulesBroken(2.9, -2.9));
+        assertEquals(List.of("2:1"), rulesBroken(0, 0, 3.1));
+        assertEquals(List.of("0:1"), rulesBroken(-3.5));
+    }
+
+    @Test
+    void rule2FlagsTwoOfThreeBeyondTwoSigmaOnOneSide() {
+        assertEquals(List.of("2:2"), rulesBroken(2.5, 0, 2.5));
+        assertEquals(List.of("1:2"), rulesBroken(-2.2, -2.4));
+        // Opposite sides, or too far apart
+        assertEquals(List.of(), rulesBroken(2.5, -2.5));
+        assertEquals(List.of(), rulesBroken(2.5, 0, 0, 2.5));
+    }
+
+    @Test
+    void rule3FlagsFourOfFiveBeyondOneSigmaOnOneSide() {
+        assertEquals(List.of("4:3"), rulesBroken(1.5, 1.5, 0, 1.5, 1.5));
+        assertEquals(List.of("3:3"), rulesBroken(-1.2, -1.2, -1.2, -1.2));
+        assertEquals(List.of(), rulesBroken(1.5, 1.5, -1.5, 1.5, 0));
+        assertEquals(List.of(), rulesBroken(1.5, 1.5, 0, 0, 1.5, 1.5));
+    }
+
+    @Test
+    void rule4FlagsEightInARowOnOneSide() {
+        assertEquals(List.of(), rulesBroken(0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5));
+        assertEquals(List.of("7:4", "8:4"), rulesBroken(0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5));
+        assertEquals(List.of(), rulesBroken(-0.5, -0.5, -0.5, 0.5, -0.5, -0.5, -0.5, -0.5));
+        // A point on the center line breaks the run
+        assertEquals(List.of(), rulesBroken(0.5, 0.5, 0.5, 0.5, 0, 0.5, 0.5, 0.5, 0.5));
+    }
+
+    @Test
+    void oneBadPointCanBreakSeveralRules() {
+        assertEquals(List.of("2:2", "3:1", "3:2", "3:3"), rulesBroken(2.5, 1.5, 2.5, 3.5));
+    }
+
+    @Test
+    void zeroSigmaChecksNothing() {
+        SpcService.RuleChecker rules = new SpcService.RuleChecker(10, 0);
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rules.check(i, DATE, 50, violations);
+        }
+        assertEquals(List.of(), violations);
+    }
+
+    // "index:rule" for every violation, in the order found
+    private static List<String> rulesBroken(double... values) {
+        SpcService.RuleChecker rules = new SpcService.RuleChecker(0, 1);
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            rules.check(i, DATE.plusDays(i), values[i], violations);
+        }
+        return violations.stream().map(violation -> violation.index() + ":" + violation.rule()).toList();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.labbackend.service;
+
+import org.example.labbackend.EmbeddedDatabaseTest;
+import org.example.labbackend.controller.TestingDataController;
+import org.example.labbackend.dto.BulkImportResult;
+import org.example.labbackend.dto.BulkImportResult.RowError;
+import org.example.labbackend.model.TestingData;
+import org.example.labbackend.repository.TestingDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CSV parsing and the JDBC insert path of the testing data bulk import, against
+ * the embedded database.
+ */
+class TestingDataImportServiceTests extends EmbeddedDatabaseTest {
+
+    private static final List<String> BATCHES = List.of("ZC9101", "ZC9102", "ZC9103", "ZC9104");
+
+    @Autowired
+    private TestingDataImportService testingDataImportService;
+
+    @Autowired
+    private TestingDataRepository testingDataRepository;
+
+    @Autowired
+    private TestingDataController testingDataController;
+
+    @AfterEach
+    void cleanUp() {
+        for (String batch : BATCHES) {
+            List<Long> ids = testingDataRepository.findByBatch(batch).stream().map(TestingData::getId).toList();
+            if (!ids.isEmpty()) {
+                testingDataController.deleteAll(ids);
+            }
+        }
+    }
+
+    @Test
+    void csvColumnsAreMappedByHeaderName() throws Exception {
+        String csv = " dropPoint ,batch,id,code,date\r\n"
+                + "\"510 °F\",ZC9101,99,\"Grease, \"\"EP\"\" 2\",2029-03-05\r\n"
+                + "\"first line\nsecond line\",ZC9102,,450,\r\n"
+                + "\r\n";
+
+        BulkImportResult result = testingDataImportService.importCsv(new StringReader(csv));
+
+        assertEquals(2, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(List.of(), result.getErrors());
+
+        TestingData quoted = testingDataRepository.findByBatch("ZC9101").get(0);
+        assertEquals("510 °F", quoted.getDropPoint());
+        assertEquals("Grease, \"EP\" 2", quoted.getCode());
+        assertEquals(LocalDate.of(2029, 3, 5), quoted.getDate());
+        // Bound by BatchCode.bind, since JDBC skips the entity listener
+        assertEquals(2029, quoted.getBatchCode().getYear());
+        assertEquals(3, quoted.getBatchCode().getMonth());
+
+        TestingData multiline = testingDataRepository.findByBatch("ZC9102").get(0);
+        assertEquals("first line\nsecond line", multiline.getDropPoint());
+        assertEquals("450", multiline.getCode());
+        assertNull(multiline.getDate());
+    }
+
+    @Test
+    void unknownColumnRejectsTheFile() {
+        String csv = "batch,viscosity\nZC9101,220\n";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> testingDataImportService.importCsv(new StringReader(csv)));
+        assertEquals(List.of(), testingDataRepository.findByBatch("ZC9101"));
+    }
+
+    @Test
+    void badRowsAreReportedAndTheRestImported() throws Exception {
+        String csv = "batch,code,date\n"
+                + "ZC9103,450,2029-03-01\n"
+                + "ZC9103,450\n"
+                + "ZC9103,450,03/01/2029\n"
+                + "ZC9103,451,2029-03-02\n";
+
+        BulkImportResult result = testingDataImportService.importCsv(new StringReader(csv));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(
+                new RowError(2, "Expected 3 columns but found 2"),
+                new RowError(3, "Invalid date: 03/01/2029")), result.getErrors());
+        assertEquals(List.of("450", "451"), codes("ZC9103"));
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() {
+        // The middle code is too long for its column, which fails the whole batched INSERT
+        List<TestingData> rows = List.of(row("ZC9104", "450"), row("ZC9104", "4".repeat(300)), row("ZC9104", "451"));
+
+        BulkImportResult result = testingDataImportService.importRows(rows);
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).row());
+        assertEquals(List.of("450", "451"), codes("ZC9104"));
+    }
+
+    private List<String> codes(String batch) {
+        return testingDataRepository.findByBatch(batch).stream().map(TestingData::getCode).sorted().toList();
+    }
+
+    private static TestingData row(String batch, String code) {
+        TestingData row = new TestingData();
+        row.setBatch(batch);
+        row.setCode(code);
+        row.setDate(LocalDate.of(2029, 3, 1));
+        return row;
+    }
+}